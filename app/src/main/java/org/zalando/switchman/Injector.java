@@ -6,13 +6,21 @@ import org.zalando.switchman.api.RecommendationApi;
 import org.zalando.switchman.api.SearchApi;
 import org.zalando.switchman.data.RecommendationDataSource;
 import org.zalando.switchman.data.SearchDataSource;
+import org.zalando.switchman.repo.CollectionRepository;
 
 public final class Injector {
     private static CompleteItemProvider COMPLETE_ITEM_PROVIDER = new CompleteItemProvider();
+    // All lists of the user share one command pipeline, every list is created once.
+    private static final CollectionRepository COLLECTIONS = new CollectionRepository();
+    private static RecommendationDataSource recommendationDataSource;
 
     private Injector() {}
-    public static RecommendationDataSource createRecommendationDataSource() {
-        return new RecommendationDataSource(new RecommendationApi(COMPLETE_ITEM_PROVIDER), new ApiErrorConverterImpl());
+    public static synchronized RecommendationDataSource getRecommendationDataSource() {
+        if (recommendationDataSource == null) {
+            recommendationDataSource = new RecommendationDataSource(new RecommendationApi(COMPLETE_ITEM_PROVIDER),
+                    new ApiErrorConverterImpl(), COLLECTIONS);
+        }
+        return recommendationDataSource;
     }
 
     public static SearchDataSource createSearchDataSource() {
@@ -2,10 +2,13 @@ package org.zalando.switchman.data;
 
 import org.zalando.switchman.api.Api;
 import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.CollectionRepository;
 import org.zalando.switchman.repo.ItemRepositoryImpl;
 
 public class RecommendationDataSource extends ItemRepositoryImpl {
-    public RecommendationDataSource(Api api, ApiErrorConverter apiErrorConverter) {
-        super(api, apiErrorConverter);
+    public static final String COLLECTION_ID = "recommendations";
+
+    public RecommendationDataSource(Api api, ApiErrorConverter apiErrorConverter, CollectionRepository collections) {
+        super(api, apiErrorConverter, collections, COLLECTION_ID);
     }
 }
@@ -34,7 +34,7 @@ public class MainActivity extends AppCompatActivity {
         recyclerView.setLayoutManager(new LinearLayoutManager(this,
                 LinearLayoutManager.VERTICAL, false));
 
-        recommendationDataSource = Injector.createRecommendationDataSource();
+        recommendationDataSource = Injector.getRecommendationDataSource();
         searchDataSource = Injector.createSearchDataSource();
     }
 
@@ -0,0 +1,45 @@
+package org.zalando.switchman;
+
+/**
+ * {@link ItemId} for collections that identify their items by a 64-bit number.
+ * Such ids are kept by {@link org.zalando.switchman.repo.LocalStorage} as primitive values, so
+ * they neither cost an object per stored item nor create garbage when looked up.
+ */
+public final class LongItemId implements ItemId {
+
+    private final long value;
+
+    private LongItemId(final long value) {
+        this.value = value;
+    }
+
+    public static LongItemId of(final long value) {
+        return new LongItemId(value);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LongItemId that = (LongItemId) o;
+
+        return value == that.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (value ^ (value >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "LongItemId{" +
+                "value=" + value +
+                '}';
+    }
+}
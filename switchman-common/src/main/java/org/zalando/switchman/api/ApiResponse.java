@@ -0,0 +1,63 @@
+package org.zalando.switchman.api;
+
+import java.util.concurrent.TimeUnit;
+
+public class ApiResponse {
+
+    private static final long NO_RETRY_AFTER = -1;
+
+    public static ApiResponse createSuccessfulResponse() {
+        return new ApiResponse(HttpStatus.OK.value(), true, null, NO_RETRY_AFTER);
+    }
+
+    public static ApiResponse createFailedResponse(final int code, final ApiError cause) {
+        return new ApiResponse(code, false, cause, NO_RETRY_AFTER);
+    }
+
+    /**
+     * Failed response with a delay requested by the back end, usually taken from "Retry-After" header
+     * of {@link HttpStatus#TOO_MANY_REQUESTS} or {@link HttpStatus#SERVICE_UNAVAILABLE}.
+     */
+    public static ApiResponse createFailedResponse(final int code, final ApiError cause,
+                                                   final long retryAfter, final TimeUnit unit) {
+        return new ApiResponse(code, false, cause, unit.toMillis(retryAfter));
+    }
+
+    private final int code;
+    private final boolean isSuccessful;
+    private final ApiError cause;
+    private final long retryAfterMillis;
+
+    private ApiResponse(final int code, final boolean isSuccessful, final ApiError cause,
+                        final long retryAfterMillis) {
+        this.code = code;
+        this.isSuccessful = isSuccessful;
+        this.cause = cause;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isSuccessful() {
+        return isSuccessful;
+    }
+
+    public ApiError getCause() {
+        return cause;
+    }
+
+    public boolean hasRetryAfter() {
+        return retryAfterMillis != NO_RETRY_AFTER;
+    }
+
+    /**
+     * @return delay requested by the back end before the next attempt, see {@link #hasRetryAfter()}.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    public interface ApiError { }
+}
@@ -72,7 +72,20 @@ public enum HttpStatus {
      *
      * @see  <a href="http://tools.ietf.org/html/rfc2616#section-10.4.11">HTTP/1.1</a>
      */
-    GONE(410);
+    GONE(410),
+    /**
+     * {@code 429 Too Many Requests}.
+     *
+     * @see  <a href="http://tools.ietf.org/html/rfc6585#section-4">Additional HTTP Status Codes</a>
+     */
+    TOO_MANY_REQUESTS(429),
+
+    /**
+     * {@code 503 Service Unavailable}.
+     *
+     * @see  <a href="http://tools.ietf.org/html/rfc2616#section-10.5.4">HTTP/1.1</a>
+     */
+    SERVICE_UNAVAILABLE(503);
 
     private final int value;
 
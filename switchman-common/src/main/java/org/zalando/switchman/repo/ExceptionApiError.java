@@ -2,7 +2,7 @@ package org.zalando.switchman.repo;
 
 import org.zalando.switchman.api.ApiResponse;
 
-class ExceptionApiError implements ApiResponse.ApiError {
+public class ExceptionApiError implements ApiResponse.ApiError {
     private final Throwable throwable;
 
     public ExceptionApiError(Throwable throwable) {
@@ -0,0 +1,111 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of item ids used by {@link LocalStorage}. Every {@link LongItemId} is stored as a
+ * primitive value in a {@link PagedLongSet}, any other id goes to a {@link PagedHashSet}, so the
+ * cheaper representation is picked per id without any configuration.
+ * @param <T> type of an item id
+ */
+final class ItemIdSet<T extends ItemId> implements Iterable<T> {
+
+    private static final ItemIdSet<ItemId> EMPTY =
+            new ItemIdSet<>(PagedHashSet.<ItemId>empty(), PagedLongSet.EMPTY);
+
+    private final PagedHashSet<T> ids;
+    private final PagedLongSet longIds;
+
+    private ItemIdSet(final PagedHashSet<T> ids, final PagedLongSet longIds) {
+        this.ids = ids;
+        this.longIds = longIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends ItemId> ItemIdSet<T> empty() {
+        return (ItemIdSet<T>) EMPTY;
+    }
+
+    static <T extends ItemId> ItemIdSet<T> copyOf(final Collection<? extends T> input) {
+        final List<T> ids = new ArrayList<>();
+        final long[] longIds = new long[input.size()];
+        int longIdCount = 0;
+        for (T id : input) {
+            if (id instanceof LongItemId) {
+                longIds[longIdCount++] = ((LongItemId) id).getValue();
+            } else {
+                ids.add(id);
+            }
+        }
+        return new ItemIdSet<>(PagedHashSet.copyOf(ids, ids.size()), PagedLongSet.copyOf(longIds, longIdCount));
+    }
+
+    int size() {
+        return ids.size() + longIds.size();
+    }
+
+    boolean contains(final Object id) {
+        if (id instanceof LongItemId) {
+            return longIds.contains(((LongItemId) id).getValue());
+        }
+        return ids.contains(id);
+    }
+
+    ItemIdSet<T> plus(final T id) {
+        if (id instanceof LongItemId) {
+            return withLongIds(longIds.plus(((LongItemId) id).getValue()));
+        }
+        return withIds(ids.plus(id));
+    }
+
+    ItemIdSet<T> minus(final Object id) {
+        if (id instanceof LongItemId) {
+            return withLongIds(longIds.minus(((LongItemId) id).getValue()));
+        }
+        return withIds(ids.minus(id));
+    }
+
+    private ItemIdSet<T> withIds(final PagedHashSet<T> newIds) {
+        return newIds == ids ? this : new ItemIdSet<>(newIds, longIds);
+    }
+
+    private ItemIdSet<T> withLongIds(final PagedLongSet newLongIds) {
+        return newLongIds == longIds ? this : new ItemIdSet<>(ids, newLongIds);
+    }
+
+    /**
+     * Long ids are materialized as new {@link LongItemId} instances, which are equal to the stored ones.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        final Iterator<T> idIterator = ids.iterator();
+        final long[] values = longIds.toArray(0);
+        return new Iterator<T>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return idIterator.hasNext() || index < values.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (idIterator.hasNext()) {
+                    return idIterator.next();
+                }
+                if (index >= values.length) {
+                    throw new NoSuchElementException();
+                }
+                return (T) LongItemId.of(values[index++]);
+            }
+        };
+    }
+}
@@ -0,0 +1,378 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Represents the expected item collection's state from the application point of view allowing it
+ * to react immediately on user actions.
+ * Having {@link Snapshot#itemsDuringAddition} and {@link Snapshot#itemsDuringRemoval} allows handling
+ * error from network and the back end without loosing of data's integrity
+ * <p>
+ * The state is kept in an immutable {@link Snapshot}. Writers are serialized and publish a new
+ * snapshot, that shares everything but the changed pages with the previous one, while readers
+ * ({@link #contains(ItemId)}, {@link #getCounterValue()} and {@link #snapshot()}) never take a lock.
+ * Ids of type {@link org.zalando.switchman.LongItemId} are kept as primitive values.
+ * @param <T> type of an item id
+ */
+public class LocalStorage<T extends ItemId> {
+
+    private static final CounterListener NO_COUNTER_LISTENER = counterValue -> { };
+
+    private final CounterListener counterListener;
+    private final AtomicInteger counterPublishRequests = new AtomicInteger();
+    /**
+     * Accessed only by the thread that publishes, see {@link #publishCounter()}.
+     */
+    private int publishedCounterValue = -1;
+    private final AtomicReference<Snapshot<T>> state = new AtomicReference<>(Snapshot.empty());
+
+    private volatile String syncToken;
+
+    public LocalStorage() {
+        this(NO_COUNTER_LISTENER);
+    }
+
+    /**
+     * @param counterListener receives the counter from {@link #publishCounter()}.
+     */
+    public LocalStorage(final CounterListener counterListener) {
+        this.counterListener = counterListener;
+    }
+
+    /**
+     * Replaces the whole list with one loaded without a sync token, so the token of the previous
+     * changes is dropped: changes since it can't be applied on top of a list loaded later.
+     */
+    public synchronized void refreshLocalStorage(final Set<? extends Item<T>> input) {
+        final List<T> ids = new ArrayList<>(input.size());
+        for (Item<T> item : input) {
+            ids.add(item.getId());
+        }
+        replaceItemIds(ids);
+        this.syncToken = null;
+    }
+
+    /**
+     * Replaces the whole list with the one loaded with the sync token, see {@link #applyChanges}.
+     */
+    public synchronized void refreshLocalStorage(final Collection<? extends T> ids, final String syncToken) {
+        replaceItemIds(ids);
+        this.syncToken = syncToken;
+    }
+
+    /**
+     * Applies changes of the list in place, only the changed items are touched. Readers see either
+     * none or all of them.
+     *
+     * @param baseSyncToken token the changes were requested with.
+     * @return false if the list was replaced or changed with another token since the changes were
+     * requested, then they are ignored.
+     */
+    public synchronized boolean applyChanges(final String baseSyncToken, final Collection<? extends T> addedIds,
+                                             final Collection<? extends T> removedIds, final String syncToken) {
+        if (baseSyncToken == null || !baseSyncToken.equals(this.syncToken)) {
+            return false;
+        }
+        final Snapshot<T> current = state.get();
+        ItemIdSet<T> addedItems = current.addedItems;
+        int counterValue = current.counterValue;
+        for (T id : addedIds) {
+            final ItemIdSet<T> changedItems = addedItems.plus(id);
+            counterValue += current.weightDeltaOf(id, addedItems, changedItems);
+            addedItems = changedItems;
+        }
+        for (T id : removedIds) {
+            final ItemIdSet<T> changedItems = addedItems.minus(id);
+            counterValue += current.weightDeltaOf(id, addedItems, changedItems);
+            addedItems = changedItems;
+        }
+        if (addedItems != current.addedItems) {
+            state.set(new Snapshot<>(addedItems, current.itemsDuringAddition, current.itemsDuringRemoval,
+                    current.removedItems, current.isListLoaded, current.isListRestored, counterValue));
+        }
+        this.syncToken = syncToken;
+        return true;
+    }
+
+    /**
+     * @return token of the last changes applied to the list, null if the list wasn't loaded with one.
+     */
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    private void replaceItemIds(final Collection<? extends T> ids) {
+        final Snapshot<T> current = state.get();
+        state.set(Snapshot.of(ItemIdSet.copyOf(ids), current.itemsDuringAddition,
+                current.itemsDuringRemoval, ItemIdSet.<T>empty(), true, false));
+    }
+
+    /**
+     * Fills the storage with the list saved by a previous process, see {@code SnapshotFile} of the
+     * switchman module. Items confirmed by commands since the start win over the saved ones.
+     *
+     * @return false if the list was already loaded from the back end and the saved one was ignored.
+     */
+    public synchronized boolean restore(final Collection<? extends T> savedIds) {
+        final Snapshot<T> current = state.get();
+        if (current.isListLoaded) {
+            return false;
+        }
+
+        final List<T> ids = new ArrayList<>(savedIds.size() + current.addedItems.size());
+        for (T id : savedIds) {
+            if (!current.removedItems.contains(id)) {
+                ids.add(id);
+            }
+        }
+        for (T id : current.addedItems) {
+            ids.add(id);
+        }
+        state.set(Snapshot.of(ItemIdSet.copyOf(ids), current.itemsDuringAddition,
+                current.itemsDuringRemoval, current.removedItems, false, true));
+        return true;
+    }
+
+    /**
+     * @return {@link Boolean#TRUE} if the back end is known to have the item, {@link Boolean#FALSE}
+     * if it is known not to have it and null if nothing is known about it yet.
+     */
+    public Boolean getConfirmedMembership(final T id) {
+        final Snapshot<T> current = state.get();
+        if (current.removedItems.contains(id)) {
+            return Boolean.FALSE;
+        }
+        if (current.isListRestored) {
+            // saved list may be outdated, so neither it nor what is added to it can be trusted
+            return null;
+        }
+        if (current.addedItems.contains(id)) {
+            return Boolean.TRUE;
+        }
+        return current.isListLoaded ? Boolean.FALSE : null;
+    }
+
+    /**
+     * Publishes the counter only if it changed since it was published last time. One thread at a time
+     * publishes, without holding any lock while the listener runs: a request that comes meanwhile is
+     * served by that thread, which reads the counter again, so an older value is never published after
+     * a newer one and the latest value is always published.
+     */
+    public void publishCounter() {
+        if (counterPublishRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            final int counterValue = getCounterValue();
+            if (counterValue != publishedCounterValue) {
+                publishedCounterValue = counterValue;
+                counterListener.onCounterChanged(counterValue);
+            }
+            missed = counterPublishRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * @return current state of the storage, it never changes once obtained.
+     */
+    public Snapshot<T> snapshot() {
+        return state.get();
+    }
+
+    public int getCounterValue() {
+        return state.get().getCounterValue();
+    }
+
+    public boolean contains(final T id) {
+        return state.get().contains(id);
+    }
+
+    public synchronized void moveItemIdFromAdditionToAdded(final T id) {
+        final Snapshot<T> current = state.get();
+        update(current, id, current.addedItems.plus(id),
+                current.itemsDuringAddition.minus(id), current.itemsDuringRemoval,
+                current.removedItems.minus(id));
+    }
+
+    public synchronized void removeItemIdFromRemovalAndAdded(final T id) {
+        final Snapshot<T> current = state.get();
+        update(current, id, current.addedItems.minus(id),
+                current.itemsDuringAddition, current.itemsDuringRemoval.minus(id),
+                current.isListLoaded ? current.removedItems : current.removedItems.plus(id));
+    }
+
+    public synchronized void addItemIdForAddition(final T id) {
+        final Snapshot<T> current = state.get();
+        update(current, id, current.addedItems,
+                current.itemsDuringAddition.plus(id), current.itemsDuringRemoval,
+                current.removedItems);
+    }
+
+    public synchronized void removeItemIdFromAddition(final T id) {
+        final Snapshot<T> current = state.get();
+        update(current, id, current.addedItems,
+                current.itemsDuringAddition.minus(id), current.itemsDuringRemoval,
+                current.removedItems);
+    }
+
+    public synchronized void addItemIdForRemoving(final T id) {
+        final Snapshot<T> current = state.get();
+        update(current, id, current.addedItems,
+                current.itemsDuringAddition, current.itemsDuringRemoval.plus(id),
+                current.removedItems);
+    }
+
+    public synchronized void removeItemIdFromRemoving(final T id) {
+        final Snapshot<T> current = state.get();
+        update(current, id, current.addedItems,
+                current.itemsDuringAddition, current.itemsDuringRemoval.minus(id),
+                current.removedItems);
+    }
+
+    private void update(final Snapshot<T> current, final T id, final ItemIdSet<T> addedItems,
+                        final ItemIdSet<T> itemsDuringAddition, final ItemIdSet<T> itemsDuringRemoval,
+                        final ItemIdSet<T> removedItems) {
+        if (addedItems == current.addedItems
+                && itemsDuringAddition == current.itemsDuringAddition
+                && itemsDuringRemoval == current.itemsDuringRemoval
+                && removedItems == current.removedItems) {
+            return;
+        }
+        final int counterValue = current.counterValue - current.weightOf(id)
+                + Snapshot.weightOf(id, addedItems, itemsDuringAddition, itemsDuringRemoval);
+        state.set(new Snapshot<>(addedItems, itemsDuringAddition, itemsDuringRemoval,
+                removedItems, current.isListLoaded, current.isListRestored, counterValue));
+    }
+
+    /**
+     * Receives the counter every time it changes, one value at a time.
+     */
+    public interface CounterListener {
+        void onCounterChanged(int counterValue);
+    }
+
+    /**
+     * Immutable state of a {@link LocalStorage} at some point of time.
+     * @param <T> type of an item id
+     */
+    public static final class Snapshot<T extends ItemId> {
+
+        private static final Snapshot<ItemId> EMPTY = new Snapshot<>(ItemIdSet.<ItemId>empty(),
+                ItemIdSet.<ItemId>empty(), ItemIdSet.<ItemId>empty(), ItemIdSet.<ItemId>empty(), false, false, 0);
+
+        private final ItemIdSet<T> addedItems;
+        private final ItemIdSet<T> itemsDuringAddition;
+        private final ItemIdSet<T> itemsDuringRemoval;
+        /**
+         * Items that are known to be removed on the back end. Only tracked until the whole list is
+         * loaded, afterwards absence in {@link #addedItems} means the same.
+         */
+        private final ItemIdSet<T> removedItems;
+        private final boolean isListLoaded;
+        /**
+         * {@link #addedItems} come from a saved list and the list wasn't loaded from the back end yet.
+         */
+        private final boolean isListRestored;
+        private final int counterValue;
+
+        private Snapshot(final ItemIdSet<T> addedItems, final ItemIdSet<T> itemsDuringAddition,
+                         final ItemIdSet<T> itemsDuringRemoval, final ItemIdSet<T> removedItems,
+                         final boolean isListLoaded, final boolean isListRestored, final int counterValue) {
+            this.addedItems = addedItems;
+            this.itemsDuringAddition = itemsDuringAddition;
+            this.itemsDuringRemoval = itemsDuringRemoval;
+            this.removedItems = removedItems;
+            this.isListLoaded = isListLoaded;
+            this.isListRestored = isListRestored;
+            this.counterValue = counterValue;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T extends ItemId> Snapshot<T> empty() {
+            return (Snapshot<T>) EMPTY;
+        }
+
+        /**
+         * Full recalculation of the counter, only needed when {@link #addedItems} is replaced as a whole.
+         * Pending sets are expected to be small, so it is linear in their size only.
+         */
+        private static <T extends ItemId> Snapshot<T> of(final ItemIdSet<T> addedItems,
+                                                         final ItemIdSet<T> itemsDuringAddition,
+                                                         final ItemIdSet<T> itemsDuringRemoval,
+                                                         final ItemIdSet<T> removedItems,
+                                                         final boolean isListLoaded,
+                                                         final boolean isListRestored) {
+            int counterValue = addedItems.size();
+            for (T itemDuringAddition : itemsDuringAddition) {
+                if (!addedItems.contains(itemDuringAddition)) {
+                    counterValue++;
+                }
+            }
+
+            for (T itemDuringRemoval : itemsDuringRemoval) {
+                if (addedItems.contains(itemDuringRemoval)) {
+                    counterValue--;
+                }
+            }
+
+            return new Snapshot<>(addedItems, itemsDuringAddition, itemsDuringRemoval,
+                    removedItems, isListLoaded, isListRestored, counterValue);
+        }
+
+        /**
+         * @return how much a single id contributes to the counter: an added item counts unless it is
+         * being removed, an item that is not added counts only while it is being added.
+         */
+        private static int weightOf(final Object id, final ItemIdSet<?> addedItems,
+                                    final ItemIdSet<?> itemsDuringAddition,
+                                    final ItemIdSet<?> itemsDuringRemoval) {
+            if (addedItems.contains(id)) {
+                return itemsDuringRemoval.contains(id) ? 0 : 1;
+            }
+            return itemsDuringAddition.contains(id) ? 1 : 0;
+        }
+
+        private int weightOf(final T id) {
+            return weightOf(id, addedItems, itemsDuringAddition, itemsDuringRemoval);
+        }
+
+        /**
+         * @return change of the contribution of the id to the counter when {@link #addedItems} is
+         * changed from one set to another, while the pending sets stay the same.
+         */
+        private int weightDeltaOf(final T id, final ItemIdSet<T> fromAddedItems, final ItemIdSet<T> toAddedItems) {
+            return weightOf(id, toAddedItems, itemsDuringAddition, itemsDuringRemoval)
+                    - weightOf(id, fromAddedItems, itemsDuringAddition, itemsDuringRemoval);
+        }
+
+        public boolean contains(final T id) {
+            return (addedItems.contains(id)
+                        || itemsDuringAddition.contains(id)) //
+                    && !itemsDuringRemoval.contains(id);
+        }
+
+        public int getCounterValue() {
+            return counterValue;
+        }
+
+        /**
+         * @return items the back end is known to have, without the pending changes.
+         */
+        ItemIdSet<T> getAddedItems() {
+            return addedItems;
+        }
+
+        ItemIdSet<T> getItemsDuringAddition() {
+            return itemsDuringAddition;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.zalando.switchman.repo;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable open-addressing hash set with linear probing. The table is split into pages, so a
+ * modification copies only the page directory and the pages it touches, while everything else is
+ * shared with the previous version. That keeps single-element updates cheap even for large sets
+ * and allows readers to use any version without synchronization.
+ * @param <T> type of an element
+ */
+final class PagedHashSet<T> implements Iterable<T> {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MIN_CAPACITY = 8;
+    private static final float MAX_LOAD_FACTOR = .8f;
+
+    private static final PagedHashSet<Object> EMPTY = new PagedHashSet<>(allocate(MIN_CAPACITY), 0);
+
+    private final Object[][] pages;
+    private final int mask;
+    private final int size;
+
+    private PagedHashSet(final Object[][] pages, final int size) {
+        this.pages = pages;
+        this.mask = capacityOf(pages) - 1;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PagedHashSet<T> empty() {
+        return (PagedHashSet<T>) EMPTY;
+    }
+
+    static <T> PagedHashSet<T> copyOf(final Iterable<? extends T> elements, final int expectedSize) {
+        final Object[][] pages = allocate(capacityFor(expectedSize));
+        final int mask = capacityOf(pages) - 1;
+        int size = 0;
+        for (T element : elements) {
+            int index = hash(element) & mask;
+            Object current;
+            while ((current = pages[index >>> PAGE_BITS][index & PAGE_MASK]) != null) {
+                if (current.equals(element)) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            if (current == null) {
+                pages[index >>> PAGE_BITS][index & PAGE_MASK] = element;
+                size++;
+            }
+        }
+        return new PagedHashSet<>(pages, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(final Object element) {
+        return indexOf(element) >= 0;
+    }
+
+    PagedHashSet<T> plus(final T element) {
+        int index = hash(element) & mask;
+        Object current;
+        while ((current = get(pages, index)) != null) {
+            if (current.equals(element)) {
+                return this;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (size + 1 > (mask + 1) * MAX_LOAD_FACTOR) {
+            return copyOf(new Plus<>(this, element), size + 1);
+        }
+
+        final Object[][] copy = pages.clone();
+        writablePage(copy, index)[index & PAGE_MASK] = element;
+        return new PagedHashSet<>(copy, size + 1);
+    }
+
+    PagedHashSet<T> minus(final Object element) {
+        int hole = indexOf(element);
+        if (hole < 0) {
+            return this;
+        }
+
+        // Backward shift deletion keeps probe sequences intact without tombstones.
+        final Object[][] copy = pages.clone();
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            final Object current = get(copy, index);
+            if (current == null) {
+                break;
+            }
+            final int ideal = hash(current) & mask;
+            if (((index - ideal) & mask) >= ((index - hole) & mask)) {
+                writablePage(copy, hole)[hole & PAGE_MASK] = current;
+                hole = index;
+            }
+        }
+        writablePage(copy, hole)[hole & PAGE_MASK] = null;
+        return new PagedHashSet<>(copy, size - 1);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return index <= mask;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final T element = (T) get(pages, index);
+                index = advance(index + 1);
+                return element;
+            }
+
+            private int advance(int from) {
+                while (from <= mask && get(pages, from) == null) {
+                    from++;
+                }
+                return from;
+            }
+        };
+    }
+
+    private int indexOf(final Object element) {
+        int index = hash(element) & mask;
+        Object current;
+        while ((current = get(pages, index)) != null) {
+            if (current.equals(element)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private Object[] writablePage(final Object[][] copy, final int index) {
+        final int page = index >>> PAGE_BITS;
+        if (copy[page] == pages[page]) {
+            copy[page] = pages[page].clone();
+        }
+        return copy[page];
+    }
+
+    private static Object get(final Object[][] pages, final int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    private static int hash(final Object element) {
+        final int h = element.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int capacityOf(final Object[][] pages) {
+        return pages.length == 1 ? pages[0].length : pages.length * PAGE_SIZE;
+    }
+
+    private static Object[][] allocate(final int capacity) {
+        if (capacity <= PAGE_SIZE) {
+            return new Object[][] {new Object[capacity]};
+        }
+        final Object[][] pages = new Object[capacity / PAGE_SIZE][];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = new Object[PAGE_SIZE];
+        }
+        return pages;
+    }
+
+    /**
+     * Elements of a set followed by one more element, used to grow the table in a single pass.
+     */
+    private static final class Plus<T> implements Iterable<T> {
+        private final PagedHashSet<T> set;
+        private final T element;
+
+        private Plus(final PagedHashSet<T> set, final T element) {
+            this.set = set;
+            this.element = element;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<T> iterator = set.iterator();
+            return new Iterator<T>() {
+                private boolean elementReturned;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext() || !elementReturned;
+                }
+
+                @Override
+                public T next() {
+                    if (iterator.hasNext()) {
+                        return iterator.next();
+                    }
+                    if (elementReturned) {
+                        throw new NoSuchElementException();
+                    }
+                    elementReturned = true;
+                    return element;
+                }
+            };
+        }
+    }
+}
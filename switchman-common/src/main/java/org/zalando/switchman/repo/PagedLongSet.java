@@ -0,0 +1,189 @@
+package org.zalando.switchman.repo;
+
+/**
+ * Primitive counterpart of {@link PagedHashSet}: immutable open-addressing set of longs, split
+ * into pages that are shared between versions. {@code 0} marks an empty slot, so presence of the
+ * value {@code 0} itself is kept in a separate flag.
+ */
+final class PagedLongSet {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MIN_CAPACITY = 8;
+    private static final float MAX_LOAD_FACTOR = .8f;
+
+    static final PagedLongSet EMPTY = new PagedLongSet(allocate(MIN_CAPACITY), 0, false);
+
+    private final long[][] pages;
+    private final int mask;
+    private final int size;
+    private final boolean containsZero;
+
+    private PagedLongSet(final long[][] pages, final int size, final boolean containsZero) {
+        this.pages = pages;
+        this.mask = capacityOf(pages) - 1;
+        this.size = size;
+        this.containsZero = containsZero;
+    }
+
+    static PagedLongSet copyOf(final long[] values, final int count) {
+        final long[][] pages = allocate(capacityFor(count));
+        final int mask = capacityOf(pages) - 1;
+        int size = 0;
+        boolean containsZero = false;
+        for (int i = 0; i < count; i++) {
+            final long value = values[i];
+            if (value == 0) {
+                if (!containsZero) {
+                    containsZero = true;
+                    size++;
+                }
+                continue;
+            }
+            int index = hash(value) & mask;
+            long current;
+            while ((current = pages[index >>> PAGE_BITS][index & PAGE_MASK]) != 0 && current != value) {
+                index = (index + 1) & mask;
+            }
+            if (current == 0) {
+                pages[index >>> PAGE_BITS][index & PAGE_MASK] = value;
+                size++;
+            }
+        }
+        return new PagedLongSet(pages, size, containsZero);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(final long value) {
+        return value == 0 ? containsZero : indexOf(value) >= 0;
+    }
+
+    PagedLongSet plus(final long value) {
+        if (value == 0) {
+            return containsZero ? this : new PagedLongSet(pages, size + 1, true);
+        }
+
+        int index = hash(value) & mask;
+        long current;
+        while ((current = get(pages, index)) != 0) {
+            if (current == value) {
+                return this;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (size + 1 > (mask + 1) * MAX_LOAD_FACTOR) {
+            final long[] values = toArray(size + 1);
+            values[size] = value;
+            return copyOf(values, values.length);
+        }
+
+        final long[][] copy = pages.clone();
+        writablePage(copy, index)[index & PAGE_MASK] = value;
+        return new PagedLongSet(copy, size + 1, containsZero);
+    }
+
+    PagedLongSet minus(final long value) {
+        if (value == 0) {
+            return containsZero ? new PagedLongSet(pages, size - 1, false) : this;
+        }
+
+        int hole = indexOf(value);
+        if (hole < 0) {
+            return this;
+        }
+
+        final long[][] copy = pages.clone();
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            final long current = get(copy, index);
+            if (current == 0) {
+                break;
+            }
+            final int ideal = hash(current) & mask;
+            if (((index - ideal) & mask) >= ((index - hole) & mask)) {
+                writablePage(copy, hole)[hole & PAGE_MASK] = current;
+                hole = index;
+            }
+        }
+        writablePage(copy, hole)[hole & PAGE_MASK] = 0;
+        return new PagedLongSet(copy, size - 1, containsZero);
+    }
+
+    /**
+     * @param capacity minimal length of the returned array.
+     * @return all values of the set, followed by {@code capacity - size} unused slots if capacity is
+     * greater than size.
+     */
+    long[] toArray(final int capacity) {
+        final long[] values = new long[Math.max(capacity, size)];
+        int count = 0;
+        if (containsZero) {
+            values[count++] = 0;
+        }
+        for (int index = 0; index <= mask; index++) {
+            final long value = get(pages, index);
+            if (value != 0) {
+                values[count++] = value;
+            }
+        }
+        return values;
+    }
+
+    private int indexOf(final long value) {
+        int index = hash(value) & mask;
+        long current;
+        while ((current = get(pages, index)) != 0) {
+            if (current == value) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private long[] writablePage(final long[][] copy, final int index) {
+        final int page = index >>> PAGE_BITS;
+        if (copy[page] == pages[page]) {
+            copy[page] = pages[page].clone();
+        }
+        return copy[page];
+    }
+
+    private static long get(final long[][] pages, final int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    private static int hash(final long value) {
+        final long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int capacityOf(final long[][] pages) {
+        return pages.length == 1 ? pages[0].length : pages.length * PAGE_SIZE;
+    }
+
+    private static long[][] allocate(final int capacity) {
+        if (capacity <= PAGE_SIZE) {
+            return new long[][] {new long[capacity]};
+        }
+        final long[][] pages = new long[capacity / PAGE_SIZE][];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = new long[PAGE_SIZE];
+        }
+        return pages;
+    }
+}
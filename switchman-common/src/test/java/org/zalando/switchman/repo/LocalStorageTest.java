@@ -0,0 +1,179 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+
+public class LocalStorageTest {
+
+    private LocalStorage<ItemId> localStorage;
+
+    @Before
+    public void setUp() throws Exception {
+        localStorage = new LocalStorage<>();
+    }
+
+    @Test
+    public void counter_CountsPendingAdditionsAndRemovals() {
+        ItemId addedItemId = mock(ItemId.class);
+        ItemId newItemId = mock(ItemId.class);
+        localStorage.refreshLocalStorage(itemsOf(addedItemId));
+
+        localStorage.addItemIdForAddition(newItemId);
+        assertEquals(2, localStorage.getCounterValue());
+
+        localStorage.addItemIdForRemoving(addedItemId);
+        assertEquals(1, localStorage.getCounterValue());
+        assertFalse(localStorage.contains(addedItemId));
+
+        localStorage.removeItemIdFromRemovalAndAdded(addedItemId);
+        localStorage.moveItemIdFromAdditionToAdded(newItemId);
+        assertEquals(1, localStorage.getCounterValue());
+        assertTrue(localStorage.contains(newItemId));
+    }
+
+    @Test
+    public void snapshot_IsNotChanged_When_StorageIsModified() {
+        ItemId itemId = mock(ItemId.class);
+        localStorage.addItemIdForAddition(itemId);
+        LocalStorage.Snapshot<ItemId> snapshot = localStorage.snapshot();
+
+        localStorage.addItemIdForRemoving(itemId);
+        localStorage.removeItemIdFromAddition(itemId);
+
+        assertTrue(snapshot.contains(itemId));
+        assertEquals(1, snapshot.getCounterValue());
+        assertFalse(localStorage.contains(itemId));
+        assertEquals(0, localStorage.getCounterValue());
+    }
+
+    @Test
+    public void longItemIds_AreComparedByValue() {
+        localStorage.refreshLocalStorage(itemsOf(LongItemId.of(1), LongItemId.of(2)));
+
+        localStorage.addItemIdForRemoving(LongItemId.of(2));
+
+        assertTrue(localStorage.contains(LongItemId.of(1)));
+        assertFalse(localStorage.contains(LongItemId.of(2)));
+        assertEquals(1, localStorage.getCounterValue());
+    }
+
+    @Test
+    public void counter_DoesNotChange_When_SameIdIsAddedForAdditionTwice() {
+        ItemId itemId = mock(ItemId.class);
+
+        localStorage.addItemIdForAddition(itemId);
+        localStorage.addItemIdForAddition(itemId);
+
+        assertEquals(1, localStorage.getCounterValue());
+    }
+
+    @Test
+    public void counter_MatchesContainedItems_When_RandomCommandsAreApplied() {
+        Random random = new Random(42);
+        List<ItemId> itemIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            itemIds.add(i % 2 == 0 ? mock(ItemId.class) : LongItemId.of(i));
+        }
+        localStorage.refreshLocalStorage(itemsOf(itemIds.subList(0, 10).toArray(new ItemId[10])));
+
+        for (int i = 0; i < 2000; i++) {
+            ItemId itemId = itemIds.get(random.nextInt(itemIds.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                    localStorage.addItemIdForAddition(itemId);
+                    localStorage.removeItemIdFromRemoving(itemId);
+                    break;
+                case 1:
+                    localStorage.addItemIdForRemoving(itemId);
+                    localStorage.removeItemIdFromAddition(itemId);
+                    break;
+                case 2: localStorage.moveItemIdFromAdditionToAdded(itemId); break;
+                case 3: localStorage.removeItemIdFromAddition(itemId); break;
+                case 4: localStorage.removeItemIdFromRemovalAndAdded(itemId); break;
+                default: localStorage.removeItemIdFromRemoving(itemId); break;
+            }
+
+            assertEquals(expectedCounter(itemIds), localStorage.getCounterValue());
+        }
+    }
+
+    @Test
+    public void applyChanges_PublishesAllChangesInOneSnapshot() {
+        localStorage.refreshLocalStorage(Arrays.asList(LongItemId.of(1), LongItemId.of(2)), "token1");
+        localStorage.addItemIdForRemoving(LongItemId.of(2));
+        LocalStorage.Snapshot<ItemId> before = localStorage.snapshot();
+
+        assertTrue(localStorage.applyChanges("token1", Arrays.asList(LongItemId.of(3), LongItemId.of(4)),
+                Arrays.asList(LongItemId.of(1), LongItemId.of(2)), "token2"));
+
+        assertEquals(1, before.getCounterValue());
+        assertTrue(before.contains(LongItemId.of(1)));
+        assertFalse(before.contains(LongItemId.of(3)));
+        assertEquals(2, localStorage.getCounterValue());
+        assertFalse(localStorage.contains(LongItemId.of(1)));
+        assertTrue(localStorage.contains(LongItemId.of(3)));
+        assertTrue(localStorage.contains(LongItemId.of(4)));
+    }
+
+    @Test(timeout = 5000)
+    public void publishCounter_DoesNotBlock_When_ListenerWaitsForAnotherPublisher() throws Exception {
+        List<Integer> published = Collections.synchronizedList(new ArrayList<>());
+        List<LocalStorage<ItemId>> storageHolder = new ArrayList<>();
+        LocalStorage<ItemId> storage = new LocalStorage<>(counterValue -> {
+            published.add(counterValue);
+            if (counterValue == 0) {
+                Thread publisher = new Thread(() -> {
+                    storageHolder.get(0).addItemIdForAddition(LongItemId.of(1));
+                    storageHolder.get(0).publishCounter();
+                });
+                publisher.start();
+                try {
+                    publisher.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        storageHolder.add(storage);
+
+        storage.publishCounter();
+
+        assertEquals(Arrays.asList(0, 1), published);
+    }
+
+    private int expectedCounter(final List<ItemId> itemIds) {
+        int expected = 0;
+        for (ItemId itemId : itemIds) {
+            if (localStorage.contains(itemId)) {
+                expected++;
+            }
+        }
+        return expected;
+    }
+
+    private static Set<Item<ItemId>> itemsOf(final ItemId... itemIds) {
+        Set<Item<ItemId>> items = new HashSet<>();
+        for (ItemId itemId : itemIds) {
+            items.add(() -> itemId);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,63 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PagedHashSetTest {
+
+    @Test
+    public void plusAndMinus_BehaveLikeHashSet_When_SetSpansSeveralPages() {
+        Random random = new Random(7);
+        Set<Integer> expected = new HashSet<>();
+        PagedHashSet<Integer> actual = PagedHashSet.empty();
+
+        for (int i = 0; i < 50000; i++) {
+            Integer value = random.nextInt(8000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                actual = actual.minus(value);
+            } else {
+                expected.add(value);
+                actual = actual.plus(value);
+            }
+        }
+
+        assertEquals(expected.size(), actual.size());
+        for (int value = 0; value < 8000; value++) {
+            assertEquals(expected.contains(value), actual.contains(value));
+        }
+        Set<Integer> iterated = new HashSet<>();
+        for (Integer value : actual) {
+            iterated.add(value);
+        }
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void previousVersion_IsNotChanged_When_NewVersionIsModified() {
+        PagedHashSet<Integer> first = PagedHashSet.copyOf(Collections.singleton(1), 1);
+        PagedHashSet<Integer> second = first.plus(2).minus(1);
+
+        assertTrue(first.contains(1));
+        assertFalse(first.contains(2));
+        assertFalse(second.contains(1));
+        assertTrue(second.contains(2));
+    }
+
+    @Test
+    public void sameInstanceIsReturned_When_NothingChanges() {
+        PagedHashSet<Integer> set = PagedHashSet.<Integer>empty().plus(1);
+
+        assertSame(set, set.plus(1));
+        assertSame(set, set.minus(2));
+    }
+}
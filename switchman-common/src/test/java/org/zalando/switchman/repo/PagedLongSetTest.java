@@ -0,0 +1,52 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PagedLongSetTest {
+
+    @Test
+    public void plusAndMinus_BehaveLikeHashSet_When_SetSpansSeveralPages() {
+        Random random = new Random(7);
+        Set<Long> expected = new HashSet<>();
+        PagedLongSet actual = PagedLongSet.EMPTY;
+
+        for (int i = 0; i < 50000; i++) {
+            long value = random.nextInt(8000) - 100;
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                actual = actual.minus(value);
+            } else {
+                expected.add(value);
+                actual = actual.plus(value);
+            }
+        }
+
+        assertEquals(expected.size(), actual.size());
+        for (long value = -100; value < 7900; value++) {
+            assertEquals(expected.contains(value), actual.contains(value));
+        }
+        Set<Long> listed = new HashSet<>();
+        for (long value : actual.toArray(0)) {
+            listed.add(value);
+        }
+        assertEquals(expected, listed);
+    }
+
+    @Test
+    public void zero_IsStoredAsRegularValue() {
+        PagedLongSet set = PagedLongSet.EMPTY.plus(0);
+
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertFalse(set.minus(0).contains(0));
+        assertEquals(0, set.minus(0).size());
+    }
+}
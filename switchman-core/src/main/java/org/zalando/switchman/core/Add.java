@@ -0,0 +1,71 @@
+package org.zalando.switchman.core;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.HttpStatus;
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.LocalStorage;
+import org.zalando.switchman.repo.Response;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represent a command for addition. It is responsible for interacting with {@link AsyncApi#addItem(ItemId)}
+ * while keeping the {@link LocalStorage} in the proper state.
+ */
+class Add extends Command {
+
+    Add(final ItemId itemId, final long sequence, final LocalStorage<ItemId> localStorage,
+        final AsyncApi api, final ApiErrorConverter apiErrorConverter) {
+        super(localStorage, api, apiErrorConverter, itemId, sequence);
+    }
+
+    @Override
+    void preExecute() {
+        localStorage.addItemIdForAddition(itemId);
+        localStorage.removeItemIdFromRemoving(itemId);
+    }
+
+    @Override
+    void rollback() {
+        localStorage.removeItemIdFromAddition(itemId);
+    }
+
+    @Override
+    CompletableFuture<Response> execute() {
+        return call(() -> api.addItem(itemId))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        rollback();
+                        return createExceptionResponse(error);
+                    }
+                    if (response.isSuccessful() || isAlreadyAdded(response)) {
+                        localStorage.moveItemIdFromAdditionToAdded(itemId);
+                        return Response.createSuccessfulResponse();
+                    } else {
+                        rollback();
+                        return Response.createFailedResponse(
+                                apiErrorConverter.convertApiError(response.getCause()));
+                    }
+                });
+    }
+
+    @Override
+    boolean getDesiredMembership() {
+        return true;
+    }
+
+    @Override
+    void settle() {
+        localStorage.moveItemIdFromAdditionToAdded(itemId);
+    }
+
+    private boolean isAlreadyAdded(ApiResponse response) {
+        return response.getCode() == HttpStatus.CONFLICT.value();
+    }
+
+    @Override
+    public String toString() {
+        return "Add{itemId = " + getKey() + "}";
+    }
+}
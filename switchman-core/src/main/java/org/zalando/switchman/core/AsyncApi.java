@@ -0,0 +1,20 @@
+package org.zalando.switchman.core;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Back end of {@link AsyncItemRepository}. Calls are expected not to block, a failed future is
+ * handled like an exception thrown by the call.
+ */
+public interface AsyncApi {
+    CompletableFuture<Set<? extends Item<ItemId>>> getItemList();
+
+    CompletableFuture<ApiResponse> addItem(ItemId id);
+
+    CompletableFuture<ApiResponse> removeItem(ItemId id);
+}
@@ -0,0 +1,208 @@
+package org.zalando.switchman.core;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.LocalStorage;
+import org.zalando.switchman.repo.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongFunction;
+
+/**
+ * Repository of items without any reactive library, with the same collapsing and rollback as
+ * {@code ItemRepositoryImpl} of the switchman module: the back end is called for one command of
+ * an item at a time, and of the commands that come meanwhile only the latest one is executed once
+ * it is finished. The others, as well as the latest one if the back end already matches it, get
+ * skipped {@link Response}.
+ * <p>
+ * An item that has no pending command takes no memory besides its {@link LocalStorage} entry.
+ * {@code ItemRepositoryImpl} of the switchman-rx3 module adapts it to RxJava 3.
+ */
+public class AsyncItemRepository {
+
+    private final AsyncApi api;
+    private final LocalStorage<ItemId> localStorage;
+    private final ApiErrorConverter apiErrorConverter;
+    private final Executor executor;
+    private final CounterPublisher counter = new CounterPublisher();
+
+    /**
+     * Routing table: items with pending commands, guarded by itself.
+     */
+    private final Map<ItemId, PendingItem> pendingItems = new HashMap<>();
+    private long lastSequence;
+
+    public AsyncItemRepository(final AsyncApi api, final ApiErrorConverter apiErrorConverter) {
+        this(api, apiErrorConverter, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor starts calls to the back end, so callers of {@link #addItem(ItemId)} and
+     * {@link #removeItem(ItemId)} never run them.
+     */
+    public AsyncItemRepository(final AsyncApi api, final ApiErrorConverter apiErrorConverter,
+                               final Executor executor) {
+        this.api = api;
+        this.localStorage = new LocalStorage<>(counter);
+        this.apiErrorConverter = apiErrorConverter;
+        this.executor = executor;
+
+        localStorage.publishCounter();
+    }
+
+    public CompletableFuture<Set<? extends Item<ItemId>>> getItemList() {
+        return api.getItemList()
+                .thenApply(items -> {
+                    localStorage.refreshLocalStorage(items);
+                    localStorage.publishCounter();
+                    return items;
+                });
+    }
+
+    /**
+     * @return publisher of amount of items that expected to be in the collection, it emits the current
+     * amount on subscription and then every time it changes. A slow subscriber gets the latest amount only.
+     */
+    public Flow.Publisher<Integer> getCounter() {
+        return counter;
+    }
+
+    public boolean hasItem(final ItemId id) {
+        return localStorage.contains(id);
+    }
+
+    /**
+     * @return immutable state of the collection.
+     */
+    public LocalStorage.Snapshot<ItemId> snapshot() {
+        return localStorage.snapshot();
+    }
+
+    public CompletableFuture<Response> addItem(final ItemId id) {
+        return launchCommand(id, sequence -> new Add(id, sequence, localStorage, api, apiErrorConverter));
+    }
+
+    public CompletableFuture<Response> removeItem(final ItemId id) {
+        return launchCommand(id, sequence -> new Remove(id, sequence, localStorage, api, apiErrorConverter));
+    }
+
+    /**
+     * Sequence, registration and the local change are done under the lock of the routing table, so
+     * commands of an item are ordered the same way in all of them, and a command is dispatched only
+     * after its change is visible.
+     */
+    private CompletableFuture<Response> launchCommand(final ItemId id, final LongFunction<Command> commandFactory) {
+        final CompletableFuture<Response> result = new CompletableFuture<>();
+        final Command command;
+        final boolean isDispatched;
+        synchronized (pendingItems) {
+            command = commandFactory.apply(++lastSequence);
+            PendingItem pendingItem = pendingItems.get(id);
+            if (pendingItem == null) {
+                pendingItem = new PendingItem();
+                pendingItems.put(id, pendingItem);
+            }
+            pendingItem.pendingCommands.add(new PendingCommand(command, result));
+            command.preExecute();
+            isDispatched = !pendingItem.isExecuting;
+            if (isDispatched) {
+                pendingItem.isExecuting = true;
+            } else {
+                pendingItem.latestCommand = command;
+            }
+        }
+        localStorage.publishCounter();
+        if (isDispatched) {
+            dispatch(command);
+        }
+        return result;
+    }
+
+    /**
+     * Only the latest command for the item reaches this point, so it represents the desired
+     * membership. Back end is called only if it is not known to match it already.
+     * <p>
+     * The command is finished on every path, a call that fails or can't even be started gives a
+     * failed {@link Response}, so the item never stays executing.
+     */
+    private void dispatch(final Command command) {
+        final Boolean confirmedMembership = localStorage.getConfirmedMembership(command.getKey());
+        if (confirmedMembership == null || confirmedMembership != command.getDesiredMembership()) {
+            try {
+                executor.execute(() -> command.execute()
+                        .whenComplete((response, error) -> onCommandFinished(command,
+                                error == null ? response : command.createExceptionResponse(error))));
+            } catch (RejectedExecutionException e) {
+                command.rollback();
+                onCommandFinished(command, command.createExceptionResponse(e));
+            }
+        } else {
+            command.settle();
+            onCommandFinished(command, Response.createSkippedResponse());
+        }
+    }
+
+    /**
+     * Delivers the response to the caller of the command, callers of the same item that launched
+     * their commands before it get skipped {@link Response}. Then the latest command that came
+     * meanwhile is dispatched, if any.
+     */
+    private void onCommandFinished(final Command command, final Response response) {
+        if (!response.isSuccessful()) {
+            localStorage.publishCounter();
+        }
+        final List<PendingCommand> completed = new ArrayList<>(2);
+        final Command nextCommand;
+        synchronized (pendingItems) {
+            final PendingItem pendingItem = pendingItems.get(command.getKey());
+            final List<PendingCommand> pendingCommands = pendingItem.pendingCommands;
+            for (int i = pendingCommands.size() - 1; i >= 0; i--) {
+                if (pendingCommands.get(i).command.getSequence() <= command.getSequence()) {
+                    completed.add(pendingCommands.remove(i));
+                }
+            }
+            nextCommand = pendingItem.latestCommand;
+            pendingItem.latestCommand = null;
+            if (nextCommand == null) {
+                pendingItem.isExecuting = false;
+                if (pendingCommands.isEmpty()) {
+                    pendingItems.remove(command.getKey());
+                }
+            }
+        }
+        for (PendingCommand pendingCommand : completed) {
+            pendingCommand.result.complete(pendingCommand.command == command
+                    ? response
+                    : Response.createSkippedResponse());
+        }
+        if (nextCommand != null) {
+            dispatch(nextCommand);
+        }
+    }
+
+    private static final class PendingItem {
+        final List<PendingCommand> pendingCommands = new ArrayList<>(2);
+        boolean isExecuting;
+        Command latestCommand;
+    }
+
+    private static final class PendingCommand {
+        final Command command;
+        final CompletableFuture<Response> result;
+
+        private PendingCommand(final Command command, final CompletableFuture<Response> result) {
+            this.command = command;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.zalando.switchman.core;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.ExceptionApiError;
+import org.zalando.switchman.repo.LocalStorage;
+import org.zalando.switchman.repo.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+abstract class Command {
+
+    protected final LocalStorage<ItemId> localStorage;
+    protected final AsyncApi api;
+    protected final ApiErrorConverter apiErrorConverter;
+    protected final ItemId itemId;
+    private final long sequence;
+
+    Command(LocalStorage<ItemId> localStorage, AsyncApi api, ApiErrorConverter apiErrorConverter,
+            ItemId itemId, long sequence) {
+        this.localStorage = localStorage;
+        this.api = api;
+        this.apiErrorConverter = apiErrorConverter;
+        this.itemId = itemId;
+        this.sequence = sequence;
+    }
+
+    ItemId getKey() {
+        return itemId;
+    }
+
+    /**
+     * @return position of the command among all commands of the repository, later commands have
+     * greater ones.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    abstract void preExecute();
+
+    /**
+     * Takes back the change of {@link #preExecute()}, used when the back end couldn't be called.
+     */
+    abstract void rollback();
+
+    abstract CompletableFuture<Response> execute();
+
+    /**
+     * @return true if the item is expected to be in the collection once the command is done.
+     */
+    abstract boolean getDesiredMembership();
+
+    /**
+     * Brings {@link LocalStorage} to the final state without calling the {@link AsyncApi}, used when
+     * the back end already matches {@link #getDesiredMembership()}.
+     */
+    abstract void settle();
+
+    /**
+     * Calls the back end, a call that throws is turned into a failed future.
+     */
+    static CompletableFuture<ApiResponse> call(final Supplier<CompletableFuture<ApiResponse>> apiCall) {
+        try {
+            return apiCall.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return failed response with the cause converted from the error, or without a cause if the
+     * converter throws, so the caller gets a response either way.
+     */
+    Response createExceptionResponse(final Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        try {
+            return Response.createFailedResponse(apiErrorConverter.convertApiError(new ExceptionApiError(cause)));
+        } catch (RuntimeException e) {
+            return Response.createFailedResponse(null);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.zalando.switchman.core;
+
+import org.zalando.switchman.repo.LocalStorage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of the counter with the semantics of a behavior subject followed by latest-only
+ * backpressure: a subscriber gets the current value first, and if it didn't request more by the
+ * time the counter changes several times, it gets only the latest value when it does.
+ * <p>
+ * A subscription doesn't hold values, it reads the latest one when it can emit, so a value can't
+ * be delivered after a newer one no matter which thread publishes or subscribes.
+ */
+final class CounterPublisher implements Flow.Publisher<Integer>, LocalStorage.CounterListener {
+
+    private final List<CounterSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile Integer counterValue;
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super Integer> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber is null");
+        }
+        final CounterSubscription subscription = new CounterSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    @Override
+    public void onCounterChanged(final int counterValue) {
+        this.counterValue = counterValue;
+        for (CounterSubscription subscription : subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    private final class CounterSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Integer> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean isCancelled;
+
+        /**
+         * Accessed only by the thread that drains.
+         */
+        private Integer deliveredValue;
+
+        private CounterSubscription(final Flow.Subscriber<? super Integer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("non-positive request " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Only one thread emits at a time, the others just make it check the value once more.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                final Integer value = counterValue;
+                if (!isCancelled && value != null && !value.equals(deliveredValue) && requested.get() > 0) {
+                    deliveredValue = value;
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    subscriber.onNext(value);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
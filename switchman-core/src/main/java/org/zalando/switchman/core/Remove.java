@@ -0,0 +1,71 @@
+package org.zalando.switchman.core;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.HttpStatus;
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.LocalStorage;
+import org.zalando.switchman.repo.Response;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represent a command for removing. It is responsible for interacting with {@link AsyncApi#removeItem(ItemId)}
+ * while keeping the {@link LocalStorage} in the proper state.
+ */
+class Remove extends Command {
+
+    Remove(final ItemId itemId, final long sequence, final LocalStorage<ItemId> localStorage,
+           final AsyncApi api, final ApiErrorConverter apiErrorConverter) {
+        super(localStorage, api, apiErrorConverter, itemId, sequence);
+    }
+
+    @Override
+    void preExecute() {
+        localStorage.addItemIdForRemoving(itemId);
+        localStorage.removeItemIdFromAddition(itemId);
+    }
+
+    @Override
+    void rollback() {
+        localStorage.removeItemIdFromRemoving(itemId);
+    }
+
+    @Override
+    CompletableFuture<Response> execute() {
+        return call(() -> api.removeItem(itemId))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        rollback();
+                        return createExceptionResponse(error);
+                    }
+                    if (response.isSuccessful() || isAlreadyRemoved(response)) {
+                        localStorage.removeItemIdFromRemovalAndAdded(itemId);
+                        return Response.createSuccessfulResponse();
+                    } else {
+                        rollback();
+                        return Response.createFailedResponse(
+                                apiErrorConverter.convertApiError(response.getCause()));
+                    }
+                });
+    }
+
+    @Override
+    boolean getDesiredMembership() {
+        return false;
+    }
+
+    @Override
+    void settle() {
+        localStorage.removeItemIdFromRemovalAndAdded(itemId);
+    }
+
+    private boolean isAlreadyRemoved(ApiResponse response) {
+        return response.getCode() == HttpStatus.NOT_FOUND.value();
+    }
+
+    @Override
+    public String toString() {
+        return "Remove{itemId = " + getKey() + "}";
+    }
+}
@@ -0,0 +1,221 @@
+package org.zalando.switchman.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.repo.ExceptionApiError;
+import org.zalando.switchman.repo.Response;
+
+public class AsyncItemRepositoryTest {
+
+    private final ItemId itemId = LongItemId.of(1);
+    private final Response.Cause cause = new Response.Cause() { };
+
+    private FakeApi api;
+    private List<Runnable> scheduledCalls;
+    private RuntimeException converterError;
+    private boolean isExecutorRejecting;
+    private AsyncItemRepository itemRepository;
+
+    @Before
+    public void setUp() {
+        api = new FakeApi();
+        scheduledCalls = new ArrayList<>();
+        itemRepository = new AsyncItemRepository(api,
+                apiError -> {
+                    if (converterError != null) {
+                        throw converterError;
+                    }
+                    return apiError instanceof ExceptionApiError ? cause : null;
+                },
+                call -> {
+                    if (isExecutorRejecting) {
+                        throw new RejectedExecutionException();
+                    }
+                    scheduledCalls.add(call);
+                });
+    }
+
+    @Test
+    public void ARA_ResultInApiCallAddAndSkippedResponses() {
+        CompletableFuture<Response> firstAdd = itemRepository.addItem(itemId);
+        CompletableFuture<Response> remove = itemRepository.removeItem(itemId);
+        CompletableFuture<Response> secondAdd = itemRepository.addItem(itemId);
+        runScheduledCalls();
+
+        assertEquals(Collections.singletonList("add"), api.calls);
+        assertEquals(Response.createSuccessfulResponse(), firstAdd.join());
+        assertTrue(remove.join().isSkipped());
+        assertTrue(secondAdd.join().isSkipped());
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void ARAR_ResultInTwoApiCallsAddAndRemove() {
+        itemRepository.addItem(itemId);
+        itemRepository.removeItem(itemId);
+        itemRepository.addItem(itemId);
+        CompletableFuture<Response> lastRemove = itemRepository.removeItem(itemId);
+        runScheduledCalls();
+
+        assertEquals(List.of("add", "remove"), api.calls);
+        assertEquals(Response.createSuccessfulResponse(), lastRemove.join());
+        assertFalse(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void addItem_RollsBack_When_ApiFails() {
+        api.error = new RuntimeException();
+        CounterSubscriber counterSubscriber = new CounterSubscriber(Long.MAX_VALUE);
+        itemRepository.getCounter().subscribe(counterSubscriber);
+
+        CompletableFuture<Response> add = itemRepository.addItem(itemId);
+        assertTrue(itemRepository.hasItem(itemId));
+        runScheduledCalls();
+
+        assertEquals(Response.createFailedResponse(cause), add.join());
+        assertFalse(itemRepository.hasItem(itemId));
+        assertEquals(List.of(0, 1, 0), counterSubscriber.values);
+    }
+
+    @Test
+    public void addItem_CompletesWithFailedResponse_When_ConverterThrows() {
+        api.error = new RuntimeException();
+        converterError = new IllegalStateException();
+
+        CompletableFuture<Response> add = itemRepository.addItem(itemId);
+        runScheduledCalls();
+
+        assertEquals(Response.createFailedResponse(null), add.join());
+        assertFalse(itemRepository.hasItem(itemId));
+
+        api.error = null;
+        CompletableFuture<Response> nextAdd = itemRepository.addItem(itemId);
+        runScheduledCalls();
+        assertEquals(Response.createSuccessfulResponse(), nextAdd.join());
+    }
+
+    @Test
+    public void addItem_RollsBackAndCompletes_When_ExecutorRejectsCall() {
+        isExecutorRejecting = true;
+
+        CompletableFuture<Response> add = itemRepository.addItem(itemId);
+
+        assertEquals(Response.createFailedResponse(cause), add.join());
+        assertFalse(itemRepository.hasItem(itemId));
+        assertTrue(api.calls.isEmpty());
+
+        isExecutorRejecting = false;
+        CompletableFuture<Response> nextAdd = itemRepository.addItem(itemId);
+        runScheduledCalls();
+        assertEquals(Response.createSuccessfulResponse(), nextAdd.join());
+    }
+
+    @Test
+    public void addItem_DoesNotCallApi_When_ItemIsAlreadyInFetchedList() {
+        Item<ItemId> item = () -> itemId;
+        api.items = Collections.singleton(item);
+        itemRepository.getItemList().join();
+
+        CompletableFuture<Response> add = itemRepository.addItem(itemId);
+
+        assertTrue(api.calls.isEmpty());
+        assertTrue(add.join().isSkipped());
+    }
+
+    @Test
+    public void counter_DeliversLatestValueOnly_When_SubscriberIsSlow() {
+        CounterSubscriber counterSubscriber = new CounterSubscriber(1);
+        itemRepository.getCounter().subscribe(counterSubscriber);
+
+        itemRepository.addItem(LongItemId.of(1));
+        itemRepository.addItem(LongItemId.of(2));
+        itemRepository.addItem(LongItemId.of(3));
+        assertEquals(List.of(0), counterSubscriber.values);
+
+        counterSubscriber.subscription.request(1);
+        assertEquals(List.of(0, 3), counterSubscriber.values);
+    }
+
+    private void runScheduledCalls() {
+        while (!scheduledCalls.isEmpty()) {
+            scheduledCalls.remove(0).run();
+        }
+    }
+
+    private static final class FakeApi implements AsyncApi {
+        final List<String> calls = new ArrayList<>();
+        Set<? extends Item<ItemId>> items = Collections.emptySet();
+        RuntimeException error;
+
+        @Override
+        public CompletableFuture<Set<? extends Item<ItemId>>> getItemList() {
+            return CompletableFuture.completedFuture(items);
+        }
+
+        @Override
+        public CompletableFuture<ApiResponse> addItem(final ItemId id) {
+            calls.add("add");
+            return respond();
+        }
+
+        @Override
+        public CompletableFuture<ApiResponse> removeItem(final ItemId id) {
+            calls.add("remove");
+            return respond();
+        }
+
+        private CompletableFuture<ApiResponse> respond() {
+            return error != null
+                    ? CompletableFuture.failedFuture(error)
+                    : CompletableFuture.completedFuture(ApiResponse.createSuccessfulResponse());
+        }
+    }
+
+    private static final class CounterSubscriber implements Flow.Subscriber<Integer> {
+        final List<Integer> values = new ArrayList<>();
+        private final long initialRequest;
+        Flow.Subscription subscription;
+
+        private CounterSubscriber(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(final Integer item) {
+            values.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+
+        }
+
+        @Override
+        public void onComplete() {
+
+        }
+    }
+}
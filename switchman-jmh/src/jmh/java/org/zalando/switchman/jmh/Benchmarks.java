@@ -0,0 +1,52 @@
+package org.zalando.switchman.jmh;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.repo.ApiErrorConverter;
+
+/**
+ * Ids and fixtures shared by the benchmarks.
+ */
+final class Benchmarks {
+
+    static final ApiErrorConverter API_ERROR_CONVERTER = apiError -> null;
+
+    private Benchmarks() { }
+
+    /**
+     * @param idType "long" for {@link LongItemId}s that are stored as primitive values, "object" for
+     *               plain {@link ItemId}s.
+     */
+    static ItemId[] createIds(final String idType, final int count) {
+        final ItemId[] ids = new ItemId[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "long".equals(idType) ? LongItemId.of(i) : new ObjectItemId(i);
+        }
+        return ids;
+    }
+
+    static boolean isBelow(final ItemId id, final long limit) {
+        return id instanceof LongItemId && ((LongItemId) id).getValue() >= 0 && ((LongItemId) id).getValue() < limit;
+    }
+
+    private static final class ObjectItemId implements ItemId {
+        private final long value;
+
+        private ObjectItemId(final long value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            return value == ((ObjectItemId) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(value);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.zalando.switchman.jmh;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.repo.LocalStorage;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Single threaded cost of {@link LocalStorage} operations. Half of the ids are in the list, so
+ * lookups hit and miss equally and toggling keeps the size of the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocalStorageBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    @Param({"long", "object"})
+    private String idType;
+
+    private LocalStorage<ItemId> localStorage;
+    private Set<Item<ItemId>> items;
+    private ItemId[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ids = Benchmarks.createIds(idType, size * 2);
+        items = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            final ItemId id = ids[i * 2];
+            items.add(() -> id);
+        }
+        localStorage = new LocalStorage<>();
+        localStorage.refreshLocalStorage(items);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return localStorage.contains(nextId());
+    }
+
+    @Benchmark
+    public int getCounterValue() {
+        return localStorage.getCounterValue();
+    }
+
+    /**
+     * Full cycle of a successful command: the change is shown right away and confirmed later.
+     */
+    @Benchmark
+    public void toggle() {
+        final ItemId id = nextId();
+        if (localStorage.contains(id)) {
+            localStorage.addItemIdForRemoving(id);
+            localStorage.removeItemIdFromRemovalAndAdded(id);
+        } else {
+            localStorage.addItemIdForAddition(id);
+            localStorage.moveItemIdFromAdditionToAdded(id);
+        }
+    }
+
+    @Benchmark
+    public void refreshLocalStorage() {
+        localStorage.refreshLocalStorage(items);
+    }
+
+    private ItemId nextId() {
+        next = next + 7919 < ids.length ? next + 7919 : (next + 7919) % ids.length;
+        return ids[next];
+    }
+}
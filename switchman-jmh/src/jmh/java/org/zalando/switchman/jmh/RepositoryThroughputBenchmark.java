@@ -0,0 +1,89 @@
+package org.zalando.switchman.jmh;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.repo.ItemRepositoryImpl;
+import org.zalando.switchman.repo.Response;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * End-to-end throughput of {@link ItemRepositoryImpl#addItem(ItemId)} and
+ * {@link ItemRepositoryImpl#removeItem(ItemId)}, every thread toggles random items and waits for the
+ * result of each command. The engine is either the RxJava 1 one of the switchman module or the
+ * RxJava 3 adapter of switchman-rx3 over the core, so their per-command overhead can be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RepositoryThroughputBenchmark {
+
+    @Param({"0", "100"})
+    private long apiLatencyMicros;
+
+    @Param({"1024"})
+    private int keyCount;
+
+    @Param({"rx1", "rx3"})
+    private String engine;
+
+    private ItemRepositoryImpl repository;
+    private org.zalando.switchman.rx3.ItemRepositoryImpl rx3Repository;
+    private ItemId[] ids;
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private int next = ThreadLocalRandom.current().nextInt(1 << 16);
+    }
+
+    @Setup
+    public void setUp() {
+        if ("rx3".equals(engine)) {
+            rx3Repository = new org.zalando.switchman.rx3.ItemRepositoryImpl(new Rx3StubApi(apiLatencyMicros),
+                    Benchmarks.API_ERROR_CONVERTER);
+        } else {
+            repository = new ItemRepositoryImpl(new StubApi(apiLatencyMicros), Benchmarks.API_ERROR_CONVERTER);
+        }
+        ids = Benchmarks.createIds("long", keyCount);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Response toggle_1Thread(final Caller caller) {
+        return toggle(caller);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Response toggle_4Threads(final Caller caller) {
+        return toggle(caller);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Response toggle_16Threads(final Caller caller) {
+        return toggle(caller);
+    }
+
+    private Response toggle(final Caller caller) {
+        caller.next = caller.next * 1103515245 + 12345;
+        final ItemId id = ids[(caller.next >>> 16) % ids.length];
+        if (rx3Repository != null) {
+            return (rx3Repository.hasItem(id) ? rx3Repository.removeItem(id) : rx3Repository.addItem(id))
+                    .blockingGet();
+        }
+        return (repository.hasItem(id) ? repository.removeItem(id) : repository.addItem(id))
+                .toBlocking()
+                .value();
+    }
+}
@@ -0,0 +1,56 @@
+package org.zalando.switchman.jmh;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.repo.ItemRepositoryImpl;
+import org.zalando.switchman.repo.RepositoryConfig;
+import org.zalando.switchman.repo.Response;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import rx.schedulers.Schedulers;
+
+/**
+ * Cost of a command whose result has to be routed to its caller while callers of other items are
+ * waiting. Commands are executed on the calling thread, so only the repository itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultRoutingBenchmark {
+
+    @Param({"0", "1000", "100000"})
+    private int pendingCallers;
+
+    private final ItemId itemId = LongItemId.of(-1);
+    private ItemRepositoryImpl repository;
+    private boolean isAdded;
+
+    @Setup
+    public void setUp() {
+        repository = new ItemRepositoryImpl(new StubApi(0, pendingCallers), Benchmarks.API_ERROR_CONVERTER,
+                RepositoryConfig.builder()
+                        .commandScheduler(Schedulers.immediate())
+                        .build());
+        for (int i = 0; i < pendingCallers; i++) {
+            repository.addItem(LongItemId.of(i)).subscribe();
+        }
+    }
+
+    @Benchmark
+    public Response toggle() {
+        isAdded = !isAdded;
+        return (isAdded ? repository.addItem(itemId) : repository.removeItem(itemId))
+                .toBlocking()
+                .value();
+    }
+}
@@ -0,0 +1,43 @@
+package org.zalando.switchman.jmh;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.rx3.Api;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Same as {@link StubApi} for the RxJava 3 repository: every call is answered successfully after a
+ * fixed latency.
+ */
+class Rx3StubApi implements Api {
+
+    private final Single<ApiResponse> response;
+
+    Rx3StubApi(final long latencyMicros) {
+        final Single<ApiResponse> successfulResponse = Single.just(ApiResponse.createSuccessfulResponse());
+        this.response = latencyMicros == 0
+                ? successfulResponse
+                : successfulResponse.delay(latencyMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public Single<Set<? extends Item<ItemId>>> getItemList() {
+        return Single.<Set<? extends Item<ItemId>>>just(Collections.<Item<ItemId>>emptySet());
+    }
+
+    @Override
+    public Single<ApiResponse> addItem(final ItemId id) {
+        return response;
+    }
+
+    @Override
+    public Single<ApiResponse> removeItem(final ItemId id) {
+        return response;
+    }
+}
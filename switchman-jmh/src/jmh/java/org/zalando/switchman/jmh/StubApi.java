@@ -0,0 +1,58 @@
+package org.zalando.switchman.jmh;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Single;
+
+/**
+ * In-process back end that answers every call successfully after a fixed latency. Calls for the
+ * item ids in {@link #neverAnswered} never complete, so their callers stay pending.
+ */
+class StubApi implements Api {
+
+    private final Single<ApiResponse> response;
+    private final Single<ApiResponse> neverAnswered = Observable.<ApiResponse>never().toSingle();
+    private final long neverAnsweredIdLimit;
+
+    /**
+     * @param neverAnsweredIdLimit calls for {@link org.zalando.switchman.LongItemId}s below it never complete.
+     */
+    StubApi(final long latencyMicros, final long neverAnsweredIdLimit) {
+        final Single<ApiResponse> successfulResponse = Single.just(ApiResponse.createSuccessfulResponse());
+        this.response = latencyMicros == 0
+                ? successfulResponse
+                : successfulResponse.delay(latencyMicros, TimeUnit.MICROSECONDS);
+        this.neverAnsweredIdLimit = neverAnsweredIdLimit;
+    }
+
+    StubApi(final long latencyMicros) {
+        this(latencyMicros, 0);
+    }
+
+    @Override
+    public Single<Set<? extends Item<ItemId>>> getItemList() {
+        return Single.<Set<? extends Item<ItemId>>>just(Collections.<Item<ItemId>>emptySet());
+    }
+
+    @Override
+    public Single<ApiResponse> addItem(final ItemId id) {
+        return respond(id);
+    }
+
+    @Override
+    public Single<ApiResponse> removeItem(final ItemId id) {
+        return respond(id);
+    }
+
+    private Single<ApiResponse> respond(final ItemId id) {
+        return Benchmarks.isBelow(id, neverAnsweredIdLimit) ? neverAnswered : response;
+    }
+}
@@ -0,0 +1,176 @@
+package org.zalando.switchman.loadgen;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.repo.InMemoryRepositoryMetrics;
+import org.zalando.switchman.repo.ItemRepositoryImpl;
+import org.zalando.switchman.repo.LatencyHistogram;
+import org.zalando.switchman.repo.RepositoryConfig;
+import org.zalando.switchman.repo.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Observable;
+
+/**
+ * Replays a stream of taps into {@link ItemRepositoryImpl}s, one per user, against a
+ * {@link SimulatedBackend} and reports how the repositories coped with it:
+ * <pre>
+ * --replay=taps.csv          recorded taps, see {@link Workloads#replay(File)}, synthetic ones otherwise:
+ * --users=100 --taps=200     taps per user
+ * --keys=1000 --zipf=1.0     items and exponent of their popularity
+ * --pause=500                mean pause between taps of a user in milliseconds
+ * --burst=0.1 --burst-length=4
+ * --seed=42
+ * --min-latency=500 --max-latency=1000 --failure-rate=0.2    simulated back end
+ * --timeout=600              seconds to wait for the results
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() { }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final Options options = new Options(args);
+        final List<Tap> taps = options.has("replay")
+                ? Workloads.replay(new File(options.getString("replay", null)))
+                : Workloads.synthetic(options.getInt("users", 100), options.getInt("taps", 200),
+                        options.getInt("keys", 1000), options.getDouble("zipf", 1.0),
+                        options.getLong("pause", 500), options.getDouble("burst", 0.1),
+                        options.getInt("burst-length", 4), options.getLong("seed", 42));
+        final SimulatedBackend backend = new SimulatedBackend(options.getLong("min-latency", 500),
+                options.getLong("max-latency", 1000), options.getDouble("failure-rate", 0.2));
+
+        final Report report = new Run(taps, backend).execute(options.getLong("timeout", 600));
+        report.print();
+        System.exit(report.isCorrect() ? 0 : 1);
+    }
+
+    private static final class Run {
+        private final List<Tap> taps;
+        private final SimulatedBackend backend;
+        private final Map<Integer, ItemRepositoryImpl> repositories = new HashMap<>();
+        private final InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failedCount = new AtomicLong();
+
+        private Run(final List<Tap> taps, final SimulatedBackend backend) {
+            this.taps = taps;
+            this.backend = backend;
+        }
+
+        private Report execute(final long timeoutSeconds) throws InterruptedException {
+            final RepositoryConfig config = RepositoryConfig.builder().metrics(metrics).build();
+            for (Tap tap : taps) {
+                if (!repositories.containsKey(tap.user)) {
+                    repositories.put(tap.user, new ItemRepositoryImpl(backend.forUser(tap.user), apiError -> null, config));
+                }
+            }
+            final List<Observable<?>> itemLists = new ArrayList<>(repositories.size());
+            for (ItemRepositoryImpl repository : repositories.values()) {
+                itemLists.add(repository.getItemList().toObservable());
+            }
+            Observable.merge(itemLists).toBlocking().lastOrDefault(null);
+
+            final CountDownLatch results = new CountDownLatch(taps.size());
+            final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+            final long startTime = System.nanoTime();
+            for (Tap tap : taps) {
+                executor.schedule(() -> toggle(tap, results), tap.offsetMillis, TimeUnit.MILLISECONDS);
+            }
+            final boolean isFinished = results.await(timeoutSeconds, TimeUnit.SECONDS);
+            final long durationNanos = System.nanoTime() - startTime;
+            executor.shutdownNow();
+            return new Report(this, isFinished, durationNanos);
+        }
+
+        private void toggle(final Tap tap, final CountDownLatch results) {
+            final ItemRepositoryImpl repository = repositories.get(tap.user);
+            final long submitTime = System.nanoTime();
+            (repository.hasItem(tap.itemId) ? repository.removeItem(tap.itemId) : repository.addItem(tap.itemId))
+                    .subscribe(response -> onResult(response, submitTime, results),
+                            error -> onResult(null, submitTime, results));
+        }
+
+        private void onResult(final Response response, final long submitTime, final CountDownLatch results) {
+            latency.record(System.nanoTime() - submitTime);
+            if (response == null || (!response.isSuccessful() && !response.isSkipped())) {
+                failedCount.incrementAndGet();
+            }
+            results.countDown();
+        }
+
+        /**
+         * @return amount of items the repository of the user and the back end disagree on.
+         */
+        private long countMismatches() {
+            long mismatches = 0;
+            final Map<Integer, Set<ItemId>> touched = new HashMap<>();
+            for (Tap tap : taps) {
+                Set<ItemId> ids = touched.get(tap.user);
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    touched.put(tap.user, ids);
+                }
+                ids.add(tap.itemId);
+            }
+            for (Map.Entry<Integer, Set<ItemId>> entry : touched.entrySet()) {
+                final ItemRepositoryImpl repository = repositories.get(entry.getKey());
+                for (ItemId id : entry.getValue()) {
+                    if (repository.hasItem(id) != backend.hasItem(entry.getKey(), id)) {
+                        mismatches++;
+                    }
+                }
+            }
+            return mismatches;
+        }
+    }
+
+    private static final class Report {
+        private final Run run;
+        private final boolean isFinished;
+        private final long durationNanos;
+        private final long mismatches;
+
+        private Report(final Run run, final boolean isFinished, final long durationNanos) {
+            this.run = run;
+            this.isFinished = isFinished;
+            this.durationNanos = durationNanos;
+            this.mismatches = run.countMismatches();
+        }
+
+        private boolean isCorrect() {
+            return isFinished && mismatches == 0;
+        }
+
+        private void print() {
+            final long intents = run.taps.size();
+            final long calls = run.backend.getCallCount();
+            final double seconds = durationNanos / 1e9;
+            System.out.println(String.format(Locale.US, "users:              %d", run.repositories.size()));
+            System.out.println(String.format(Locale.US, "intents:            %d in %.1f s, %.1f/s%s", intents, seconds,
+                    intents / seconds, isFinished ? "" : " (timed out waiting for results)"));
+            System.out.println(String.format(Locale.US, "latency:            p50 %.1f ms, p99 %.1f ms",
+                    run.latency.getValueAtPercentile(50) / 1e6, run.latency.getValueAtPercentile(99) / 1e6));
+            System.out.println(String.format(Locale.US, "api calls:          %d (%d failed), %.1f%% of intents saved",
+                    calls, run.backend.getFailedCallCount(), intents == 0 ? 0 : 100.0 * (intents - calls) / intents));
+            System.out.println(String.format(Locale.US, "commands:           %d executed, %d skipped, %d superseded, %d failed",
+                    run.metrics.getExecutedCount(), run.metrics.getSkippedCount(), run.metrics.getSupersededCount(),
+                    run.failedCount.get()));
+            System.out.println(String.format(Locale.US, "final state:        %s",
+                    mismatches == 0 ? "consistent" : mismatches + " items differ from the back end"));
+        }
+    }
+}
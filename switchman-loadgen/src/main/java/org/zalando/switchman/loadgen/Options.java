@@ -0,0 +1,50 @@
+package org.zalando.switchman.loadgen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options in form of {@code --name=value}.
+ */
+final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(final String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    boolean has(final String name) {
+        return values.containsKey(name);
+    }
+
+    String getString(final String name, final String defaultValue) {
+        final String value = values.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    int getInt(final String name, final int defaultValue) {
+        final String value = values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    long getLong(final String name, final long defaultValue) {
+        final String value = values.get(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    double getDouble(final String name, final double defaultValue) {
+        final String value = values.get(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
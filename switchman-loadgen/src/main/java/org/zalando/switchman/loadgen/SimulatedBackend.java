@@ -0,0 +1,98 @@
+package org.zalando.switchman.loadgen;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.HttpStatus;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Single;
+
+/**
+ * Back end that behaves like {@code RecommendationApi} of the sample app: every call takes a random
+ * time between the minimal and maximal latency and some of them fail, adding an item twice is a
+ * conflict and removing a missing one is not found. Every user has a collection of their own.
+ */
+final class SimulatedBackend {
+
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final double failureRate;
+
+    private final ConcurrentHashMap<Integer, Set<ItemId>> collections = new ConcurrentHashMap<>();
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong failedCallCount = new AtomicLong();
+
+    SimulatedBackend(final long minLatencyMillis, final long maxLatencyMillis, final double failureRate) {
+        this.minLatencyMillis = minLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    Api forUser(final int user) {
+        final Set<ItemId> collection = ConcurrentHashMap.newKeySet();
+        collections.put(user, collection);
+        return new Api() {
+            @Override
+            public Single<Set<? extends Item<ItemId>>> getItemList() {
+                return delayed().map(ignored -> {
+                    final Set<Item<ItemId>> items = new HashSet<>();
+                    for (ItemId id : collection) {
+                        items.add(() -> id);
+                    }
+                    return items;
+                });
+            }
+
+            @Override
+            public Single<ApiResponse> addItem(final ItemId id) {
+                return call().map(ignored -> collection.add(id)
+                        ? ApiResponse.createSuccessfulResponse()
+                        : ApiResponse.createFailedResponse(HttpStatus.CONFLICT.value(), new ApiResponse.ApiError() { }));
+            }
+
+            @Override
+            public Single<ApiResponse> removeItem(final ItemId id) {
+                return call().map(ignored -> collection.remove(id)
+                        ? ApiResponse.createSuccessfulResponse()
+                        : ApiResponse.createFailedResponse(HttpStatus.NOT_FOUND.value(), new ApiResponse.ApiError() { }));
+            }
+        };
+    }
+
+    boolean hasItem(final int user, final ItemId id) {
+        return collections.get(user).contains(id);
+    }
+
+    long getCallCount() {
+        return callCount.get();
+    }
+
+    long getFailedCallCount() {
+        return failedCallCount.get();
+    }
+
+    private Single<Long> call() {
+        callCount.incrementAndGet();
+        return delayed().doOnSuccess(ignored -> {
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failedCallCount.incrementAndGet();
+                throw new RuntimeException("Something went wrong on backend side");
+            }
+        });
+    }
+
+    private Single<Long> delayed() {
+        final long latencyMillis = minLatencyMillis + (maxLatencyMillis > minLatencyMillis
+                ? ThreadLocalRandom.current().nextLong(maxLatencyMillis - minLatencyMillis + 1)
+                : 0);
+        return Single.just(latencyMillis).delay(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+}
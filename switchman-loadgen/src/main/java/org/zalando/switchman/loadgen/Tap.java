@@ -0,0 +1,18 @@
+package org.zalando.switchman.loadgen;
+
+import org.zalando.switchman.LongItemId;
+
+/**
+ * User toggling an item at some point of the workload.
+ */
+final class Tap {
+    final long offsetMillis;
+    final int user;
+    final LongItemId itemId;
+
+    Tap(final long offsetMillis, final int user, final LongItemId itemId) {
+        this.offsetMillis = offsetMillis;
+        this.user = user;
+        this.itemId = itemId;
+    }
+}
@@ -0,0 +1,97 @@
+package org.zalando.switchman.loadgen;
+
+import org.zalando.switchman.LongItemId;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Streams of taps, either read from a recording or generated.
+ */
+final class Workloads {
+
+    private Workloads() { }
+
+    /**
+     * Reads a recording with a tap per line: {@code offsetMillis,user,itemId}. Empty lines and lines
+     * starting with '#' are skipped.
+     */
+    static List<Tap> replay(final File file) throws IOException {
+        final List<Tap> taps = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] fields = line.split(",");
+                if (fields.length != 3) {
+                    throw new IOException("Expected offsetMillis,user,itemId at line " + lineNumber + " of " + file);
+                }
+                taps.add(new Tap(Long.parseLong(fields[0].trim()), Integer.parseInt(fields[1].trim()),
+                        LongItemId.of(Long.parseLong(fields[2].trim()))));
+            }
+        }
+        return sorted(taps);
+    }
+
+    /**
+     * Every user taps items chosen by Zipf distribution with pauses of exponentially distributed
+     * length between them. Sometimes a tap turns into a burst: the same item is toggled several
+     * times in a row, as by an impatient user.
+     */
+    static List<Tap> synthetic(final int users, final int tapsPerUser, final int keys, final double zipfExponent,
+                               final long meanPauseMillis, final double burstProbability, final int burstLength,
+                               final long seed) {
+        final double[] cumulativeProbabilities = zipf(keys, zipfExponent);
+        final Random random = new Random(seed);
+        final List<Tap> taps = new ArrayList<>(users * tapsPerUser);
+        for (int user = 0; user < users; user++) {
+            long offsetMillis = (long) (random.nextDouble() * meanPauseMillis);
+            int userTaps = 0;
+            while (userTaps < tapsPerUser) {
+                final LongItemId itemId = LongItemId.of(sample(cumulativeProbabilities, random));
+                final int length = random.nextDouble() < burstProbability ? burstLength : 1;
+                for (int i = 0; i < length && userTaps < tapsPerUser; i++, userTaps++) {
+                    taps.add(new Tap(offsetMillis, user, itemId));
+                    offsetMillis += 20 + random.nextInt(60);
+                }
+                offsetMillis += (long) (-Math.log(1 - random.nextDouble()) * meanPauseMillis);
+            }
+        }
+        return sorted(taps);
+    }
+
+    private static double[] zipf(final int keys, final double exponent) {
+        final double[] cumulativeProbabilities = new double[keys];
+        double sum = 0;
+        for (int rank = 1; rank <= keys; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulativeProbabilities[rank - 1] = sum;
+        }
+        for (int i = 0; i < keys; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+        return cumulativeProbabilities;
+    }
+
+    private static int sample(final double[] cumulativeProbabilities, final Random random) {
+        final int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeProbabilities.length - 1);
+    }
+
+    private static List<Tap> sorted(final List<Tap> taps) {
+        Collections.sort(taps, (first, second) -> Long.compare(first.offsetMillis, second.offsetMillis));
+        return taps;
+    }
+}
@@ -0,0 +1,19 @@
+package org.zalando.switchman.loom;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.Set;
+
+/**
+ * Blocking counterpart of {@link org.zalando.switchman.api.Api} for back end clients that wait for
+ * the response on the calling thread. Every call is made from a virtual thread, so blocking is cheap.
+ */
+public interface BlockingApi {
+    Set<? extends Item<ItemId>> getItemList() throws Exception;
+
+    ApiResponse addItem(ItemId id) throws Exception;
+
+    ApiResponse removeItem(ItemId id) throws Exception;
+}
@@ -0,0 +1,43 @@
+package org.zalando.switchman.loom;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.Set;
+
+import rx.Scheduler;
+import rx.Single;
+
+/**
+ * {@link Api} that runs every call of a {@link BlockingApi} on its own virtual thread.
+ */
+public class VirtualThreadApi implements Api {
+
+    private final BlockingApi blockingApi;
+    private final Scheduler scheduler;
+
+    public VirtualThreadApi(final BlockingApi blockingApi, final Scheduler scheduler) {
+        this.blockingApi = blockingApi;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Single<Set<? extends Item<ItemId>>> getItemList() {
+        return Single.<Set<? extends Item<ItemId>>>fromCallable(blockingApi::getItemList)
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Single<ApiResponse> addItem(final ItemId id) {
+        return Single.fromCallable(() -> blockingApi.addItem(id))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Single<ApiResponse> removeItem(final ItemId id) {
+        return Single.fromCallable(() -> blockingApi.removeItem(id))
+                .subscribeOn(scheduler);
+    }
+}
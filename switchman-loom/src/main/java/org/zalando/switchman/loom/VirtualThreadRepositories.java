@@ -0,0 +1,37 @@
+package org.zalando.switchman.loom;
+
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.ItemRepositoryImpl;
+import org.zalando.switchman.repo.RepositoryConfig;
+
+import java.util.concurrent.Executors;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Creates {@link ItemRepositoryImpl} that executes commands on virtual threads instead of the
+ * io pool, so the amount of commands in flight is not limited by the amount of platform threads.
+ * Commands for the same item are still executed one by one and collapsed as usual.
+ */
+public final class VirtualThreadRepositories {
+
+    private VirtualThreadRepositories() { }
+
+    public static ItemRepositoryImpl create(final BlockingApi blockingApi,
+                                            final ApiErrorConverter apiErrorConverter) {
+        return create(blockingApi, apiErrorConverter, RepositoryConfig.builder());
+    }
+
+    /**
+     * @param configBuilder settings of the repository, its command scheduler is replaced with
+     *                      the virtual thread one.
+     */
+    public static ItemRepositoryImpl create(final BlockingApi blockingApi,
+                                            final ApiErrorConverter apiErrorConverter,
+                                            final RepositoryConfig.Builder configBuilder) {
+        final Scheduler scheduler = Schedulers.from(Executors.newVirtualThreadPerTaskExecutor());
+        return new ItemRepositoryImpl(new VirtualThreadApi(blockingApi, scheduler), apiErrorConverter,
+                configBuilder.commandScheduler(scheduler).build());
+    }
+}
@@ -0,0 +1,104 @@
+package org.zalando.switchman.loom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.repo.ItemRepositoryImpl;
+import org.zalando.switchman.repo.Response;
+
+import rx.Single;
+
+public class VirtualThreadRepositoriesTest {
+
+    @Test
+    public void ARA_ResultInSingleBlockingAddition() throws Exception {
+        CountDownLatch firstCallStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingBlockingApi api = new RecordingBlockingApi(firstCallStarted, release);
+        ItemRepositoryImpl itemRepository = VirtualThreadRepositories.create(api, apiError -> null);
+        ItemId itemId = LongItemId.of(1);
+
+        Single<Response> firstAddition = itemRepository.addItem(itemId).cache();
+        firstAddition.subscribe();
+        assertTrue(firstCallStarted.await(5, TimeUnit.SECONDS));
+        Single<Response> removal = itemRepository.removeItem(itemId).cache();
+        removal.subscribe();
+        Single<Response> secondAddition = itemRepository.addItem(itemId).cache();
+        secondAddition.subscribe();
+        release.countDown();
+
+        assertTrue(firstAddition.toBlocking().value().isSuccessful());
+        assertTrue(removal.toBlocking().value().isSkipped());
+        assertTrue(secondAddition.toBlocking().value().isSkipped());
+        assertEquals(1, api.additions.get());
+        assertEquals(0, api.removals.get());
+    }
+
+    @Test
+    public void manyBlockingCalls_AreInFlightAtTheSameTime() throws Exception {
+        int itemCount = 1000;
+        CountDownLatch allCallsStarted = new CountDownLatch(itemCount);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingBlockingApi api = new RecordingBlockingApi(allCallsStarted, release);
+        ItemRepositoryImpl itemRepository = VirtualThreadRepositories.create(api, apiError -> null);
+
+        for (int i = 0; i < itemCount; i++) {
+            itemRepository.addItem(LongItemId.of(i)).subscribe();
+        }
+
+        assertTrue(allCallsStarted.await(10, TimeUnit.SECONDS));
+        assertEquals(itemCount, api.threads.size());
+        release.countDown();
+    }
+
+    private static final class RecordingBlockingApi implements BlockingApi {
+        final AtomicInteger additions = new AtomicInteger();
+        final AtomicInteger removals = new AtomicInteger();
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        private RecordingBlockingApi(final CountDownLatch started, final CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public Set<? extends Item<ItemId>> getItemList() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public ApiResponse addItem(final ItemId id) throws Exception {
+            additions.incrementAndGet();
+            return block();
+        }
+
+        @Override
+        public ApiResponse removeItem(final ItemId id) throws Exception {
+            removals.incrementAndGet();
+            return block();
+        }
+
+        private ApiResponse block() throws InterruptedException {
+            assertTrue(Thread.currentThread().isVirtual());
+            threads.add(Thread.currentThread());
+            started.countDown();
+            release.await();
+            return ApiResponse.createSuccessfulResponse();
+        }
+    }
+}
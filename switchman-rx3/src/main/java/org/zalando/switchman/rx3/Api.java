@@ -0,0 +1,20 @@
+package org.zalando.switchman.rx3;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.Set;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Same back end as {@code org.zalando.switchman.api.Api} of the switchman module, on RxJava 3 types.
+ */
+public interface Api {
+    Single<Set<? extends Item<ItemId>>> getItemList();
+
+    Single<ApiResponse> addItem(ItemId id);
+
+    Single<ApiResponse> removeItem(ItemId id);
+}
@@ -0,0 +1,30 @@
+package org.zalando.switchman.rx3;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.repo.Response;
+
+import java.util.Set;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Same contract as {@code org.zalando.switchman.repo.ItemRepository} of the switchman module, on RxJava 3 types.
+ */
+public interface ItemRepository {
+
+    Single<Set<? extends Item<ItemId>>> getItemList();
+
+    /**
+     * @return Flowable that emits amount of items that expected to be in the collection
+     * every time it changes, a slow subscriber gets the latest amount only.
+     */
+    Flowable<Integer> getCounter();
+
+    boolean hasItem(ItemId id);
+
+    Single<Response> addItem(ItemId id);
+
+    Single<Response> removeItem(ItemId id);
+}
@@ -0,0 +1,127 @@
+package org.zalando.switchman.rx3;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.core.AsyncApi;
+import org.zalando.switchman.core.AsyncItemRepository;
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.LocalStorage;
+import org.zalando.switchman.repo.Response;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * {@link ItemRepository} on RxJava 3, a thin adapter over {@link AsyncItemRepository} of the
+ * switchman-core module, which does the collapsing and rollback.
+ * <p>
+ * Commands are launched when the returned {@link Single} is subscribed, like in the other engines,
+ * and only the call to the back end is moved to the command scheduler.
+ */
+public class ItemRepositoryImpl implements ItemRepository {
+
+    private final AsyncItemRepository repository;
+    private final Flowable<Integer> counter;
+
+    public ItemRepositoryImpl(final Api api, final ApiErrorConverter apiErrorConverter) {
+        this(api, apiErrorConverter, Schedulers.io());
+    }
+
+    /**
+     * @param commandScheduler runs calls to the back end.
+     */
+    public ItemRepositoryImpl(final Api api, final ApiErrorConverter apiErrorConverter,
+                              final Scheduler commandScheduler) {
+        this.repository = new AsyncItemRepository(new SingleApi(api), apiErrorConverter,
+                commandScheduler::scheduleDirect);
+        this.counter = Flowable.create(emitter -> repository.getCounter().subscribe(
+                new Flow.Subscriber<Integer>() {
+                    @Override
+                    public void onSubscribe(final Flow.Subscription subscription) {
+                        emitter.setCancellable(subscription::cancel);
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(final Integer counterValue) {
+                        emitter.onNext(counterValue);
+                    }
+
+                    @Override
+                    public void onError(final Throwable throwable) {
+                        emitter.onError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        emitter.onComplete();
+                    }
+                }), BackpressureStrategy.LATEST);
+    }
+
+    @Override
+    public Single<Set<? extends Item<ItemId>>> getItemList() {
+        return Single.defer(() -> Single.fromCompletionStage(repository.getItemList()));
+    }
+
+    @Override
+    public Flowable<Integer> getCounter() {
+        return counter;
+    }
+
+    @Override
+    public boolean hasItem(final ItemId id) {
+        return repository.hasItem(id);
+    }
+
+    /**
+     * @return immutable state of the collection.
+     */
+    public LocalStorage.Snapshot<ItemId> snapshot() {
+        return repository.snapshot();
+    }
+
+    @Override
+    public Single<Response> addItem(final ItemId id) {
+        return Single.defer(() -> Single.fromCompletionStage(repository.addItem(id)));
+    }
+
+    @Override
+    public Single<Response> removeItem(final ItemId id) {
+        return Single.defer(() -> Single.fromCompletionStage(repository.removeItem(id)));
+    }
+
+    /**
+     * {@link Api} seen as {@link AsyncApi}, a call is subscribed right away.
+     */
+    private static final class SingleApi implements AsyncApi {
+        private final Api api;
+
+        private SingleApi(final Api api) {
+            this.api = api;
+        }
+
+        @Override
+        public CompletableFuture<Set<? extends Item<ItemId>>> getItemList() {
+            return api.getItemList().toCompletionStage().toCompletableFuture();
+        }
+
+        @Override
+        public CompletableFuture<ApiResponse> addItem(final ItemId id) {
+            return api.addItem(id).toCompletionStage().toCompletableFuture();
+        }
+
+        @Override
+        public CompletableFuture<ApiResponse> removeItem(final ItemId id) {
+            return api.removeItem(id).toCompletionStage().toCompletableFuture();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.zalando.switchman.rx3;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.HttpStatus;
+import org.zalando.switchman.repo.ApiErrorConverter;
+
+import io.reactivex.rxjava3.core.Single;
+
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+public class ItemRepositoryTest_Part3_CounterChanges {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter);
+    }
+
+    @Test
+    public void Add_ResultIn01Counter() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1));
+    }
+
+    @Test
+    public void AR_ResultIn010Counter() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1, 0));
+    }
+
+    @Test
+    public void ARAR_ResultIn01010Counter() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1, 0, 1, 0));
+    }
+
+    @Test
+    public void AR_ResultIn0101Counter_When_LastRemovalFails() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(
+                ApiResponse.createFailedResponse(HttpStatus.BAD_REQUEST.value(), mock(ApiResponse.ApiError.class))));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1, 0, 1));
+    }
+
+    @Test
+    public void AR_ResultIn0101Counter_When_LastRemovalThrows() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.error(new RuntimeException()));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1, 0, 1));
+    }
+
+    @Test
+    public void Add_ResultIn010Counter_When_AdditionFails() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createFailedResponse(
+                        HttpStatus.BAD_REQUEST.value(), mock(ApiResponse.ApiError.class))));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1, 0));
+    }
+
+    @Test
+    public void Add_ResultIn010Counter_When_ExceptionIsThrown() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.error(new RuntimeException()));
+
+        TestSubscriber<Integer> counterTestSubscriber = itemRepository.getCounter().test();
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        counterTestSubscriber.assertValueSequence(Arrays.asList(0, 1, 0));
+    }
+}
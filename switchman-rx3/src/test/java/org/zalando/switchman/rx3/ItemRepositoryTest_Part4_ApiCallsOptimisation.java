@@ -0,0 +1,236 @@
+package org.zalando.switchman.rx3;
+
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.repo.ApiErrorConverter;
+import org.zalando.switchman.repo.ExceptionApiError;
+import org.zalando.switchman.repo.Response;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+
+public class ItemRepositoryTest_Part4_ApiCallsOptimisation {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter);
+    }
+
+
+
+    // API Calls Optimization
+    @Test
+    public void ARA_ResultInApiCallAdd() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api).addItem(itemId);
+        verify(api, never()).removeItem(itemId);
+    }
+
+    @Test
+    public void ARAR_ResultInTwoApiCallsAddAndRemove() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api).addItem(itemId);
+        verify(api).removeItem(itemId);
+    }
+
+    @Test
+    public void addItem_ShouldNotBeSkipped_When_AddRequestFailedOnceAlready() {
+        ItemId itemId = mock(ItemId.class);
+        Throwable throwable = new RuntimeException();
+        when(api.addItem(itemId))
+                .thenReturn(Single.error(throwable))
+                .thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        Response.Cause cause = mock(Response.Cause.class);
+        when(apiErrorConverter.convertApiError(new ExceptionApiError(throwable))).thenReturn(cause);
+
+        itemRepository.addItem(itemId).test();
+        TestObserver<Response> subscriber = itemRepository.addItem(itemId).test();
+
+        RxJavaSchedulerUtils.advanceOneSecond();
+        verify(api, times(2)).addItem(itemId);
+        subscriber.assertResult(Response.createSuccessfulResponse())
+                .assertComplete();
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void removeItem_ShouldNotBeSkipped_When_RemoveRequestFailedOnceAlready() {
+        ItemId itemId = addNewItemSuccessfully();
+        Throwable throwable = new RuntimeException();
+        when(api.removeItem(itemId))
+                .thenReturn(Single.error(throwable))
+                .thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        Response.Cause cause = mock(Response.Cause.class);
+        when(apiErrorConverter.convertApiError(new ExceptionApiError(throwable))).thenReturn(cause);
+
+        itemRepository.removeItem(itemId).test();
+        TestObserver<Response> subscriber = itemRepository.removeItem(itemId).test();
+
+        RxJavaSchedulerUtils.advanceOneSecond();
+        verify(api, times(2)).removeItem(itemId);
+        subscriber.assertResult(Response.createSuccessfulResponse())
+                .assertComplete();
+        assertFalse(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void twoAdditions_ShouldBeExecutedInParallel_When_ItemIdsAreDifferent() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+
+        when(api.addItem(itemId1)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+        when(api.addItem(itemId2)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+
+        TestObserver<Response> subscriber1 = itemRepository.addItem(itemId1).test();
+        TestObserver<Response> subscriber2 = itemRepository.addItem(itemId2).test();
+
+        RxJavaSchedulerUtils.advanceOneSecond();
+        subscriber1.assertNotComplete();
+        subscriber2.assertNotComplete();
+
+        verify(api).addItem(itemId1);
+        verify(api).addItem(itemId2);
+    }
+
+    @Test
+    public void ARA_ReturnsSkippedResponsesForRemoveAndSecondAdd() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        TestObserver<Response> firstAddSubscriber = itemRepository.addItem(itemId).test();
+        TestObserver<Response> removeSubscriber = itemRepository.removeItem(itemId).test();
+        TestObserver<Response> secondAddSubscriber = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertTrue(firstAddSubscriber.values().get(0).isSuccessful());
+        assertTrue(removeSubscriber.values().get(0).isSkipped());
+        assertTrue(secondAddSubscriber.values().get(0).isSkipped());
+    }
+
+    @Test
+    public void ARAR_ReturnsSkippedResponsesForFirstRemoveAndSecondAdd() {
+        ItemId itemId = mock(ItemId.class);
+
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        TestObserver<Response> firstAddSubscriber = itemRepository.addItem(itemId).test();
+        TestObserver<Response> firstRemoveSubscriber = itemRepository.removeItem(itemId).test();
+        TestObserver<Response> secondAddSubscriber = itemRepository.addItem(itemId).test();
+        TestObserver<Response> secondRemoveSubscriber = itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertTrue(firstAddSubscriber.values().get(0).isSuccessful());
+        assertTrue(firstRemoveSubscriber.values().get(0).isSkipped());
+        assertTrue(secondAddSubscriber.values().get(0).isSkipped());
+        assertTrue(secondRemoveSubscriber.values().get(0).isSuccessful());
+    }
+
+    @Test
+    public void addItem_DoesNotCallApi_When_ItemIsAlreadyInFetchedList() {
+        ItemId itemId = mock(ItemId.class);
+        Item<ItemId> item = () -> itemId;
+        when(api.getItemList()).thenReturn(Single.just(Collections.singleton(item)));
+        itemRepository.getItemList().test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        TestObserver<Response> subscriber = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, never()).addItem(itemId);
+        assertTrue(subscriber.values().get(0).isSkipped());
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void removeItem_DoesNotCallApi_When_ItemIsNotInFetchedList() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.getItemList()).thenReturn(Single.just(Collections.emptySet()));
+        itemRepository.getItemList().test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, never()).removeItem(itemId);
+        assertFalse(itemRepository.hasItem(itemId));
+        assertEquals(0, itemRepository.snapshot().getCounterValue());
+    }
+
+    /**
+     * Helper method for adding a single item.
+     *
+     * @return  ItemId of the added item
+     */
+    private ItemId addNewItemSuccessfully() {
+        ItemId itemId = mock(ItemId.class);
+        addItemSuccessfully(itemId);
+        return itemId;
+    }
+
+    /**
+     * Helper method for adding a given item.
+     *
+     * @param  itemId  id of the item to add
+     */
+    private void addItemSuccessfully(final ItemId itemId) {
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+    }
+}
@@ -0,0 +1,43 @@
+package org.zalando.switchman.rx3;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+public final class RxJavaSchedulerUtils {
+
+    private static final TestScheduler TEST_SCHEDULER = new TestScheduler();
+
+    private RxJavaSchedulerUtils() { }
+
+    /**
+     * This method overrides io, computation and new thread schedulers with the test scheduler, so
+     * nothing is run until the time is advanced.
+     *
+     * @see  RxJavaPlugins#setIoSchedulerHandler(io.reactivex.rxjava3.functions.Function)
+     */
+    public static void overrideSchedulersWithTestScheduler() {
+        RxJavaPlugins.reset();
+        RxJavaPlugins.setIoSchedulerHandler(scheduler -> TEST_SCHEDULER);
+        RxJavaPlugins.setComputationSchedulerHandler(scheduler -> TEST_SCHEDULER);
+        RxJavaPlugins.setNewThreadSchedulerHandler(scheduler -> TEST_SCHEDULER);
+    }
+
+    public static void advanceOneSecond() {
+        advanceTimeBy(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Advances the Scheduler's clock time forward by a specified amount of time.
+     *
+     * @param  delayTime  the point in time to move the Scheduler's clock to
+     * @param  unit       the units of time that {@code delayTime} is expressed in
+     *
+     * @see    RxJavaSchedulerUtils#overrideSchedulersWithTestScheduler()
+     */
+    public static void advanceTimeBy(final long delayTime, final TimeUnit unit) {
+        TEST_SCHEDULER.advanceTimeBy(delayTime, unit);
+    }
+}
@@ -0,0 +1,9 @@
+package org.zalando.switchman.rx3;
+
+import io.reactivex.rxjava3.core.Single;
+
+public class RxJavaUtils {
+    public static <T> Single<T> createNeverCompletedSingle() {
+        return Single.never();
+    }
+}
@@ -0,0 +1,19 @@
+package org.zalando.switchman.api;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.Collection;
+import java.util.Map;
+
+import rx.Single;
+
+/**
+ * Optional extension of {@link Api} for back ends that can add or remove many items in one call.
+ * Every id of the request is expected to have its own {@link ApiResponse} in the result, so a
+ * failure of a single id doesn't affect the others.
+ */
+public interface BatchApi extends Api {
+    Single<Map<ItemId, ApiResponse>> addItems(Collection<ItemId> ids);
+
+    Single<Map<ItemId, ApiResponse>> removeItems(Collection<ItemId> ids);
+}
@@ -0,0 +1,17 @@
+package org.zalando.switchman.api;
+
+import rx.Single;
+
+/**
+ * Optional extension of {@link Api} for back ends that tag versions of the list of items, like
+ * "ETag" and "If-None-Match" headers of HTTP, so an unchanged list isn't downloaded again.
+ */
+public interface ConditionalApi extends Api {
+
+    /**
+     * @param versionTag tag of the list returned last time, null if there is none.
+     * @return the list with its tag or {@link VersionedItemList#createNotModified()} if the list still
+     * has the given tag.
+     */
+    Single<VersionedItemList> getItemList(String versionTag);
+}
@@ -0,0 +1,17 @@
+package org.zalando.switchman.api;
+
+import rx.Single;
+
+/**
+ * Optional extension of {@link Api} for back ends that can tell how the list of items changed
+ * since the version identified by a sync token, so unchanged items aren't downloaded again.
+ */
+public interface DeltaApi extends Api {
+
+    /**
+     * @param syncToken token of a previous {@link ItemListDelta}, null for the whole list.
+     * @return changes since the token together with a new token, or
+     * {@link ItemListDelta#createTokenExpired()} if the back end doesn't know the token anymore.
+     */
+    Single<ItemListDelta> getChangesSince(String syncToken);
+}
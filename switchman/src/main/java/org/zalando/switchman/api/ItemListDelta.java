@@ -0,0 +1,58 @@
+package org.zalando.switchman.api;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Changes of the list of items returned by {@link DeltaApi}. When it was requested without a token
+ * {@link #getAddedIds()} is the whole list.
+ */
+public final class ItemListDelta {
+
+    private static final ItemListDelta TOKEN_EXPIRED = new ItemListDelta(Collections.<ItemId>emptyList(),
+            Collections.<ItemId>emptyList(), null);
+
+    private final Collection<ItemId> addedIds;
+    private final Collection<ItemId> removedIds;
+    private final String syncToken;
+
+    private ItemListDelta(final Collection<ItemId> addedIds, final Collection<ItemId> removedIds,
+                          final String syncToken) {
+        this.addedIds = addedIds;
+        this.removedIds = removedIds;
+        this.syncToken = syncToken;
+    }
+
+    public static ItemListDelta create(final Collection<ItemId> addedIds, final Collection<ItemId> removedIds,
+                                       final String syncToken) {
+        if (syncToken == null) {
+            throw new IllegalArgumentException("syncToken is required");
+        }
+        return new ItemListDelta(addedIds, removedIds, syncToken);
+    }
+
+    public static ItemListDelta createTokenExpired() {
+        return TOKEN_EXPIRED;
+    }
+
+    public boolean isTokenExpired() {
+        return syncToken == null;
+    }
+
+    public Collection<ItemId> getAddedIds() {
+        return addedIds;
+    }
+
+    public Collection<ItemId> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * @return token to request the next changes with, null if {@link #isTokenExpired()}.
+     */
+    public String getSyncToken() {
+        return syncToken;
+    }
+}
@@ -0,0 +1,51 @@
+package org.zalando.switchman.api;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+
+import java.util.Set;
+
+/**
+ * List of items returned by {@link ConditionalApi} together with the tag of its version.
+ */
+public final class VersionedItemList {
+
+    private static final VersionedItemList NOT_MODIFIED = new VersionedItemList(null, null);
+
+    private final Set<? extends Item<ItemId>> items;
+    private final String versionTag;
+
+    private VersionedItemList(final Set<? extends Item<ItemId>> items, final String versionTag) {
+        this.items = items;
+        this.versionTag = versionTag;
+    }
+
+    public static VersionedItemList create(final Set<? extends Item<ItemId>> items, final String versionTag) {
+        if (items == null) {
+            throw new IllegalArgumentException("items are required");
+        }
+        return new VersionedItemList(items, versionTag);
+    }
+
+    public static VersionedItemList createNotModified() {
+        return NOT_MODIFIED;
+    }
+
+    public boolean isNotModified() {
+        return items == null;
+    }
+
+    /**
+     * @return items of the list, null if {@link #isNotModified()}.
+     */
+    public Set<? extends Item<ItemId>> getItems() {
+        return items;
+    }
+
+    /**
+     * @return tag of the list, null if the back end didn't tag it.
+     */
+    public String getVersionTag() {
+        return versionTag;
+    }
+}
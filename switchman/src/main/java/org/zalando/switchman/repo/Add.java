@@ -13,9 +13,9 @@ import rx.Single;
  */
 public class Add extends Command {
 
-    Add(final ItemId itemId, final long timestamp, final LocalStorage<ItemId> localStorage,
-               final Api api, final ApiErrorConverter apiErrorConverter) {
-        super(localStorage, api, apiErrorConverter, itemId, timestamp);
+    Add(final ItemId itemId, final ItemId key, final long timestamp, final LocalStorage<ItemId> localStorage,
+               final Api api, final ApiErrorConverter apiErrorConverter, final Retrier retrier) {
+        super(localStorage, api, apiErrorConverter, retrier, itemId, key, timestamp);
     }
 
     @Override
@@ -27,7 +27,7 @@ public class Add extends Command {
 
     @Override
     Single<Response> execute() {
-        return api.addItem(itemId)
+        return retrier.call(this, () -> api.addItem(itemId))
                 .doOnError(err -> localStorage.removeItemIdFromAddition(itemId))
                 .map(response -> {
                     if (response.isSuccessful() || isAlreadyAdded(response)) {
@@ -43,6 +43,16 @@ public class Add extends Command {
                         apiErrorConverter.convertApiError(new ExceptionApiError(throwable))));
     }
 
+    @Override
+    boolean getDesiredMembership() {
+        return true;
+    }
+
+    @Override
+    void settle() {
+        localStorage.moveItemIdFromAdditionToAdded(itemId);
+    }
+
     private boolean isAlreadyAdded(ApiResponse response) {
         return response.getCode() == HttpStatus.CONFLICT.value();
     }
@@ -0,0 +1,150 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.BatchApi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.Single;
+import rx.SingleSubscriber;
+import rx.Subscription;
+import rx.functions.Func1;
+
+/**
+ * {@link Api} on top of {@link BatchApi}. Single item calls are collected for the given window,
+ * or until the batch is full, and sent as one call. Commands keep using {@link Api#addItem(ItemId)}
+ * and {@link Api#removeItem(ItemId)}, so collapsing per item happens before a call gets here.
+ */
+class BatchingApi implements Api {
+
+    private final BatchApi batchApi;
+    private final Batch additions;
+    private final Batch removals;
+
+    /**
+     * @param metrics receives {@link RepositoryMetrics#onApiCall(int)} for every batch sent.
+     */
+    BatchingApi(final BatchApi batchApi, final long windowMillis, final int maxBatchSize,
+                final Scheduler scheduler, final RepositoryMetrics metrics) {
+        this.batchApi = batchApi;
+        this.additions = new Batch(batchApi::addItems, windowMillis, maxBatchSize, scheduler.createWorker(), metrics);
+        this.removals = new Batch(batchApi::removeItems, windowMillis, maxBatchSize, scheduler.createWorker(), metrics);
+    }
+
+    @Override
+    public Single<Set<? extends Item<ItemId>>> getItemList() {
+        return batchApi.getItemList();
+    }
+
+    @Override
+    public Single<ApiResponse> addItem(final ItemId id) {
+        return additions.enqueue(id);
+    }
+
+    @Override
+    public Single<ApiResponse> removeItem(final ItemId id) {
+        return removals.enqueue(id);
+    }
+
+    private static final class Batch {
+        private final Func1<Collection<ItemId>, Single<Map<ItemId, ApiResponse>>> call;
+        private final long windowMillis;
+        private final int maxBatchSize;
+        private final Scheduler.Worker worker;
+        private final RepositoryMetrics metrics;
+
+        private List<PendingCall> pendingCalls = new ArrayList<>();
+        private Subscription windowTimer;
+
+        private Batch(final Func1<Collection<ItemId>, Single<Map<ItemId, ApiResponse>>> call,
+                      final long windowMillis, final int maxBatchSize, final Scheduler.Worker worker,
+                      final RepositoryMetrics metrics) {
+            this.call = call;
+            this.windowMillis = windowMillis;
+            this.maxBatchSize = maxBatchSize;
+            this.worker = worker;
+            this.metrics = metrics;
+        }
+
+        Single<ApiResponse> enqueue(final ItemId id) {
+            return Single.create(subscriber -> {
+                List<PendingCall> fullBatch = null;
+                synchronized (this) {
+                    pendingCalls.add(new PendingCall(id, subscriber));
+                    if (pendingCalls.size() >= maxBatchSize) {
+                        fullBatch = take();
+                    } else if (pendingCalls.size() == 1) {
+                        windowTimer = worker.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+                if (fullBatch != null) {
+                    send(fullBatch);
+                }
+            });
+        }
+
+        private void flush() {
+            final List<PendingCall> batch;
+            synchronized (this) {
+                batch = take();
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        }
+
+        private List<PendingCall> take() {
+            if (windowTimer != null) {
+                windowTimer.unsubscribe();
+                windowTimer = null;
+            }
+            final List<PendingCall> batch = pendingCalls;
+            pendingCalls = new ArrayList<>();
+            return batch;
+        }
+
+        private void send(final List<PendingCall> batch) {
+            final List<ItemId> ids = new ArrayList<>(batch.size());
+            for (PendingCall pendingCall : batch) {
+                ids.add(pendingCall.id);
+            }
+            metrics.onApiCall(ids.size());
+            call.call(ids).subscribe(
+                    responses -> {
+                        for (PendingCall pendingCall : batch) {
+                            final ApiResponse response = responses.get(pendingCall.id);
+                            if (response != null) {
+                                pendingCall.subscriber.onSuccess(response);
+                            } else {
+                                pendingCall.subscriber.onError(
+                                        new IllegalStateException("No response for " + pendingCall.id));
+                            }
+                        }
+                    },
+                    throwable -> {
+                        for (PendingCall pendingCall : batch) {
+                            pendingCall.subscriber.onError(throwable);
+                        }
+                    });
+        }
+    }
+
+    private static final class PendingCall {
+        final ItemId id;
+        final SingleSubscriber<? super ApiResponse> subscriber;
+
+        private PendingCall(final ItemId id, final SingleSubscriber<? super ApiResponse> subscriber) {
+            this.id = id;
+            this.subscriber = subscriber;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+/**
+ * Key of a command of a {@link CollectionRepository}, the same item in different collections gets
+ * different keys. {@link RepositoryMetrics} of a {@link CollectionRepository} receive these keys.
+ */
+public final class CollectionItemId implements ItemId {
+    private final String collectionId;
+    private final ItemId itemId;
+
+    CollectionItemId(final String collectionId, final ItemId itemId) {
+        this.collectionId = collectionId;
+        this.itemId = itemId;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public ItemId getItemId() {
+        return itemId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final CollectionItemId that = (CollectionItemId) o;
+
+        return collectionId.equals(that.collectionId) && itemId.equals(that.itemId);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * collectionId.hashCode() + itemId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return collectionId + "/" + itemId;
+    }
+}
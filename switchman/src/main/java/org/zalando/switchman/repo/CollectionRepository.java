@@ -0,0 +1,75 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.api.Api;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Several collections of items, for example a wishlist, a cart and hidden items, that share one
+ * command pipeline: one intake, one set of workers and one routing table of pending commands.
+ * Commands are queued by collection and item, so the same item is reconciled independently in
+ * every collection, and each collection is an {@link ItemRepositoryImpl} with its own
+ * {@link LocalStorage}, counter and {@link ItemRepository#hasItem(org.zalando.switchman.ItemId)}.
+ * <pre>
+ * CollectionRepository collections = new CollectionRepository(config);
+ * ItemRepository wishlist = collections.createCollection("wishlist", wishlistApi, apiErrorConverter);
+ * ItemRepository cart = collections.createCollection("cart", cartApi, apiErrorConverter);
+ * </pre>
+ * The config applies to every collection. Journal and snapshot file keep items by their ids only,
+ * so they can't be used with a {@link CollectionRepository}.
+ */
+public class CollectionRepository {
+
+    private final RepositoryConfig config;
+    private final CommandPipeline commandPipeline;
+    private final Set<String> collectionIds = new HashSet<>();
+
+    public CollectionRepository() {
+        this(RepositoryConfig.builder().build());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the config has a journal or a snapshot file.
+     */
+    public CollectionRepository(final RepositoryConfig config) {
+        if (config.getJournal() != CommandJournal.NONE || config.getSnapshotFile() != null) {
+            throw new IllegalArgumentException("journal and snapshot file can't be used with collections");
+        }
+        this.config = config;
+        this.commandPipeline = CommandPipeline.create(config);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the collection with the id was created already.
+     */
+    public ItemRepositoryImpl createCollection(final String collectionId, final Api api,
+                                               final ApiErrorConverter apiErrorConverter) {
+        return new ItemRepositoryImpl(api, apiErrorConverter, this, collectionId);
+    }
+
+    /**
+     * @return amount of idle command queues of all collections that were torn down so far.
+     */
+    public long getEvictedGroupCount() {
+        return commandPipeline.getEvictedGroupCount();
+    }
+
+    RepositoryConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Two collections with the same id would share the queues of their items while keeping
+     * different state, so every id can be used once.
+     */
+    synchronized CommandPipeline register(final String collectionId) {
+        if (collectionId == null) {
+            throw new NullPointerException("collectionId is null");
+        }
+        if (!collectionIds.add(collectionId)) {
+            throw new IllegalArgumentException("collection " + collectionId + " was created already");
+        }
+        return commandPipeline;
+    }
+}
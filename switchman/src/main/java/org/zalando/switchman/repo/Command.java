@@ -12,19 +12,27 @@ public abstract class Command {
     protected final Api api;
     protected final ApiErrorConverter apiErrorConverter;
     protected final ItemId itemId;
+    protected final Retrier retrier;
+    private final ItemId key;
     private final long timestamp;
 
-    public Command(LocalStorage<ItemId> localStorage, Api api, ApiErrorConverter apiErrorConverter,
-                   ItemId itemId, long timestamp) {
+    Command(LocalStorage<ItemId> localStorage, Api api, ApiErrorConverter apiErrorConverter,
+            Retrier retrier, ItemId itemId, ItemId key, long timestamp) {
         this.localStorage = localStorage;
         this.api = api;
         this.apiErrorConverter = apiErrorConverter;
+        this.retrier = retrier;
         this.itemId = itemId;
+        this.key = key;
         this.timestamp = timestamp;
     }
 
+    /**
+     * @return key that commands are queued and routed by, the item id itself unless the command
+     * belongs to a collection of a {@link CollectionRepository}.
+     */
     ItemId getKey() {
-        return itemId;
+        return key;
     }
 
     abstract void preExecute();
@@ -36,22 +44,27 @@ public abstract class Command {
     }
 
     /**
-     * Works same as equals, but doesn't take into account "timestamp".
+     * @return true if the item is expected to be in the collection once the command is done.
      */
-    boolean isSame(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+    abstract boolean getDesiredMembership();
 
-        Command command = (Command) o;
-
-        return itemId.equals(command.itemId);
-    }
+    /**
+     * Brings {@link LocalStorage} to the final state without calling the {@link Api}, used when
+     * the back end already matches {@link #getDesiredMembership()}.
+     */
+    abstract void settle();
 
-    boolean hasSameItemId(Command other) {
-        return itemId.equals(other.itemId);
+    /**
+     * Only the latest command for the item reaches execution, so it represents the desired
+     * membership. Back end is called only if it is not known to match it already, which covers
+     * any mix of repeated commands, failures and list refreshes.
+     */
+    boolean isReconciliationNeeded() {
+        final Boolean confirmedMembership = localStorage.getConfirmedMembership(itemId);
+        return confirmedMembership == null || confirmedMembership != getDesiredMembership();
     }
 
-    boolean isNotBefore(Command command) {
-        return timestamp >= command.getTimestamp();
+    void publishCounter() {
+        localStorage.publishCounter();
     }
 }
@@ -0,0 +1,109 @@
+package org.zalando.switchman.repo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.Scheduler;
+import rx.exceptions.Exceptions;
+import rx.functions.Action1;
+import rx.plugins.RxJavaHooks;
+
+/**
+ * Queue of launched commands with many producers and a single consumer, which is drained on a
+ * worker of the given scheduler. Producers never lock or retry: offering a command is a swap of the
+ * last node and an increment of the amount of commands to drain, the producer that takes it from 0
+ * takes a worker and schedules the drain on it.
+ * <p>
+ * Commands are consumed in the order their nodes were swapped in, so commands of an item launched
+ * one after another keep their order, and everything the producer did before offering a command,
+ * such as {@link Command#preExecute()}, is visible to the consumer. A command the consumer throws on
+ * is reported to {@link RxJavaHooks#onError(Throwable)} and the drain goes on with the next one.
+ * <p>
+ * The worker is released as soon as the queue is drained, also when some of the commands failed, so
+ * an idle intake holds no thread, and drains never overlap: the next one is scheduled only after the
+ * previous one counted down to 0.
+ *
+ * @param <T> type of the queued commands.
+ */
+final class CommandIntake<T> {
+
+    /**
+     * Drain yields the worker after that many commands, so other work scheduled on it isn't starved.
+     */
+    private static final int MAX_DRAIN_BATCH = 128;
+
+    private final Scheduler scheduler;
+    private final Action1<T> consumer;
+
+    private final AtomicReference<Node<T>> lastNode;
+    private final AtomicInteger undrainedCount = new AtomicInteger();
+
+    /**
+     * Accessed by the current drain only.
+     */
+    private Node<T> consumedNode;
+
+    CommandIntake(final Scheduler scheduler, final Action1<T> consumer) {
+        this.scheduler = scheduler;
+        this.consumer = consumer;
+        final Node<T> stub = new Node<>(null);
+        this.lastNode = new AtomicReference<>(stub);
+        this.consumedNode = stub;
+    }
+
+    void offer(final T command) {
+        final Node<T> node = new Node<>(command);
+        lastNode.getAndSet(node).next = node;
+        if (undrainedCount.getAndIncrement() == 0) {
+            final Scheduler.Worker drainer = scheduler.createWorker();
+            drainer.schedule(() -> drain(drainer));
+        }
+    }
+
+    private void drain(final Scheduler.Worker drainer) {
+        for (int drained = 1; ; drained++) {
+            final T command = poll();
+            try {
+                consumer.call(command);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                RxJavaHooks.onError(e);
+            }
+            if (undrainedCount.decrementAndGet() == 0) {
+                drainer.unsubscribe();
+                return;
+            }
+            if (drained == MAX_DRAIN_BATCH) {
+                drainer.schedule(() -> drain(drainer));
+                return;
+            }
+        }
+    }
+
+    /**
+     * A command is counted only after it is linked, but a producer that swapped in its node earlier
+     * may not have linked it yet, so the consumer waits for it to keep the order.
+     */
+    private T poll() {
+        Node<T> next;
+        while ((next = consumedNode.next) == null) {
+            Thread.yield();
+        }
+        consumedNode = next;
+        final T command = next.command;
+        next.command = null;
+        return command;
+    }
+
+    /**
+     * Node of the queue, it refers to the next one.
+     */
+    private static final class Node<T> {
+        T command;
+        volatile Node<T> next;
+
+        private Node(final T command) {
+            this.command = command;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Durable record of the commands that were launched but not finished yet. Intents still pending
+ * when the process dies are launched again by the next {@link ItemRepositoryImpl} that is created
+ * with the same journal, see {@link RepositoryConfig.Builder#journal(CommandJournal)}.
+ * <p>
+ * Calls are made one at a time, for the same item in the order of the commands, and outside of the
+ * locks of the repository, so a slow call delays only the caller that makes it.
+ */
+public interface CommandJournal {
+
+    /**
+     * Keeps nothing, commands are not launched again by the next repository.
+     */
+    CommandJournal NONE = new CommandJournal() {
+        @Override
+        public void recordIntent(final ItemId id, final boolean isAddition) {
+        }
+
+        @Override
+        public void recordSettled(final ItemId id) {
+        }
+
+        @Override
+        public List<Intent> getPendingIntents() {
+            return Collections.emptyList();
+        }
+    };
+
+    /**
+     * Called before the change is visible locally. Replaces any earlier intent for the item.
+     */
+    void recordIntent(ItemId id, boolean isAddition);
+
+    /**
+     * Called when there is no pending command for the item anymore.
+     */
+    void recordSettled(ItemId id);
+
+    /**
+     * @return the latest intent of every item that was not settled, in the order they were recorded.
+     */
+    List<Intent> getPendingIntents();
+
+    final class Intent {
+        private final ItemId itemId;
+        private final boolean isAddition;
+
+        public Intent(final ItemId itemId, final boolean isAddition) {
+            this.itemId = itemId;
+            this.isAddition = isAddition;
+        }
+
+        public ItemId getItemId() {
+            return itemId;
+        }
+
+        public boolean isAddition() {
+            return isAddition;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Intent intent = (Intent) o;
+
+            return isAddition == intent.isAddition && itemId.equals(intent.itemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * itemId.hashCode() + (isAddition ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return "Intent{" +
+                    "itemId=" + itemId +
+                    ", isAddition=" + isAddition +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.zalando.switchman.repo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Scheduler;
+import rx.Single;
+
+/**
+ * Intake, queues and routing table of the commands. Every {@link ItemRepositoryImpl} has one of its
+ * own, unless it is a collection of a {@link CollectionRepository}, where all collections share one
+ * and their commands are told apart by {@link Command#getKey()}.
+ * <p>
+ * Subclasses decide how commands of an item are queued and collapsed: {@link GroupedCommandPipeline}
+ * keeps a queue per item, {@link LaneCommandPipeline} spreads items over a fixed amount of lanes.
+ */
+abstract class CommandPipeline {
+
+    final RepositoryConfig config;
+    final RepositoryMetrics metrics;
+    final boolean isMeasuring;
+
+    final PendingCommandRegistry pendingCommands;
+    final AtomicLong evictedGroupCount = new AtomicLong();
+    private final Retrier retrier;
+
+    CommandPipeline(final RepositoryConfig config) {
+        this.config = config;
+        this.metrics = config.getMetrics();
+        this.isMeasuring = metrics != RepositoryMetrics.NONE;
+        this.pendingCommands = new PendingCommandRegistry(config.getJournal(), config.getMetrics());
+        this.retrier = new Retrier(config.getRetryPolicy(), config.getTimerScheduler(), pendingCommands);
+    }
+
+    static CommandPipeline create(final RepositoryConfig config) {
+        return config.getCommandLaneCount() > 0
+                ? new LaneCommandPipeline(config)
+                : new GroupedCommandPipeline(config);
+    }
+
+    Retrier getRetrier() {
+        return retrier;
+    }
+
+    long getEvictedGroupCount() {
+        return evictedGroupCount.get();
+    }
+
+    /**
+     * Caller is registered before the command is dispatched, so the result is routed straight to it
+     * even if the command completes synchronously. Registration records the command to the journal,
+     * so it happens before the change is visible locally.
+     */
+    Single<Response> launch(final Command command) {
+        final Single<Response> result = Single.create(subscriber -> {
+            metrics.onCommandSubmitted(command.getKey());
+            pendingCommands.register(command, subscriber);
+            command.preExecute();
+            dispatch(command);
+        });
+        final Scheduler completionScheduler = config.getCompletionScheduler();
+        return completionScheduler != null ? result.observeOn(completionScheduler) : result;
+    }
+
+    /**
+     * Hands the command over to the queue of its item, its local change is already visible.
+     */
+    abstract void dispatch(Command command);
+
+    /**
+     * Calls the back end for the latest command of an item. Returned Single delivers the response
+     * after the caller got it.
+     */
+    Single<Response> execute(final Command command) {
+        final long executionStartTime = isMeasuring ? config.getClock().nanoTime() : 0;
+        if (isMeasuring) {
+            metrics.onCommandExecuted(command.getKey(), executionStartTime - command.getTimestamp());
+        }
+        return command.execute()
+                .doOnSuccess(apiResponse -> {
+                    if (!apiResponse.isSuccessful()) {
+                        command.publishCounter();
+                    }
+                })
+                .doOnSuccess(response -> recordResult(command, response, executionStartTime))
+                .doOnSuccess(response -> pendingCommands.complete(command, response));
+    }
+
+    /**
+     * Finishes the latest command of an item without calling the back end, which matches it already.
+     */
+    void skip(final Command command) {
+        metrics.onCommandSkipped(command.getKey());
+        command.settle();
+        pendingCommands.complete(command, Response.createSkippedResponse());
+    }
+
+    private void recordResult(final Command command, final Response response, final long executionStartTime) {
+        if (!isMeasuring) {
+            return;
+        }
+        final long apiLatency = config.getClock().nanoTime() - executionStartTime;
+        if (response.isSuccessful()) {
+            metrics.onCommandSucceeded(command.getKey(), apiLatency);
+        } else {
+            metrics.onCommandFailed(command.getKey(), apiLatency);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.zalando.switchman.repo;
+
+/**
+ * Where {@link ItemRepositoryImpl#getItemList(FetchPolicy)} takes the list of items from. The
+ * cached list is the last one loaded from the back end, merged with the changes made since then.
+ */
+public enum FetchPolicy {
+    /**
+     * Only the cached list, fails if the list wasn't loaded yet.
+     */
+    CACHE_ONLY,
+    /**
+     * The cached list if there is one, it is loaded again in background when it is older than
+     * {@link RepositoryConfig.Builder#itemListTtl(long, java.util.concurrent.TimeUnit)}. The list is
+     * loaded if it wasn't loaded yet.
+     */
+    CACHE_THEN_NETWORK,
+    /**
+     * Always loads the list.
+     */
+    NETWORK_ONLY
+}
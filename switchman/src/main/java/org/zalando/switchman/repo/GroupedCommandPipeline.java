@@ -0,0 +1,129 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.subjects.PublishSubject;
+
+/**
+ * Pipeline with a queue per item: commands are grouped by {@link Command#getKey()}, every group is
+ * observed on the command scheduler and collapsed to the latest command while one is executing.
+ * <p>
+ * Launched commands enter through a {@link CommandIntake} drained by a worker of the command
+ * scheduler, which is the only thread that emits to the groups and is released once they are all
+ * emitted.
+ */
+class GroupedCommandPipeline extends CommandPipeline {
+
+    private final PublishSubject<Command> inputCommandStream = PublishSubject.create();
+    private final CommandIntake<Command> commandIntake;
+    private final Scheduler.Worker evictionWorker;
+
+    GroupedCommandPipeline(final RepositoryConfig config) {
+        super(config);
+
+        this.commandIntake = new CommandIntake<>(config.getCommandScheduler(), inputCommandStream::onNext);
+        this.evictionWorker = config.getTimerScheduler().createWorker();
+
+        init();
+    }
+
+    private void init() {
+        inputCommandStream.groupBy(Command::getKey)
+                .subscribe(groupedObservable -> observeOnCommandScheduler(groupedObservable)
+                        .onBackpressureLatest()
+                        .subscribe(new CommandSubscriber(groupedObservable.getKey())));
+    }
+
+    private Observable<Command> observeOnCommandScheduler(final Observable<Command> commands) {
+        final int queueSize = config.getCommandQueueSize();
+        return queueSize > 0
+                ? commands.observeOn(config.getCommandScheduler(), queueSize)
+                : commands.observeOn(config.getCommandScheduler());
+    }
+
+    @Override
+    void dispatch(final Command command) {
+        commandIntake.offer(command);
+    }
+
+    /**
+     * Reconciles a single item with the back end, one call at a time. Once it has been idle for the
+     * configured group idle timeout without any pending command it unsubscribes, which removes its
+     * group from groupBy, so memory is not held for every item ever touched.
+     */
+    private class CommandSubscriber extends Subscriber<Command> {
+        private final ItemId key;
+        private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+        private volatile long lastActivityTime;
+
+        private CommandSubscriber(final ItemId key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onStart() {
+            super.onStart();
+            requestNextCommand();
+        }
+
+        @Override
+        public void onCompleted() {
+
+        }
+
+        @Override
+        public void onError(Throwable e) {
+
+        }
+
+        @Override
+        public void onNext(Command command) {
+            lastActivityTime = evictionWorker.now();
+            if (command.isReconciliationNeeded()) {
+                execute(command)
+                        .subscribeOn(config.getCommandScheduler())
+                        .subscribe(ignored -> onCommandFinished());
+            } else {
+                skip(command);
+                onCommandFinished();
+            }
+        }
+
+        private void onCommandFinished() {
+            lastActivityTime = evictionWorker.now();
+            scheduleEviction(config.getGroupIdleTimeoutMillis());
+            requestNextCommand();
+        }
+
+        private void requestNextCommand() {
+            request(1);
+        }
+
+        private void scheduleEviction(final long delayMillis) {
+            if (evictionScheduled.compareAndSet(false, true)) {
+                evictionWorker.schedule(this::evictIfIdle, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Registry of pending commands is the source of truth here: every dispatched command stays
+         * registered until it or a newer one is finished, and registration happens under the same lock,
+         * so no command can be dropped together with the group.
+         */
+        private void evictIfIdle() {
+            evictionScheduled.set(false);
+            final long idleTime = evictionWorker.now() - lastActivityTime;
+            if (idleTime < config.getGroupIdleTimeoutMillis()) {
+                scheduleEviction(config.getGroupIdleTimeoutMillis() - idleTime);
+            } else if (pendingCommands.runIfNoPendingCommands(key, this::unsubscribe)) {
+                evictedGroupCount.incrementAndGet();
+            }
+        }
+    }
+}
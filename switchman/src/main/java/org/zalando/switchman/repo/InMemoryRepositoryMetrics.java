@@ -0,0 +1,110 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RepositoryMetrics} that counts the events and keeps durations in {@link LatencyHistogram}s.
+ * Recording neither takes a lock nor allocates.
+ */
+public final class InMemoryRepositoryMetrics implements RepositoryMetrics {
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong succeededCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong supersededCount = new AtomicLong();
+    private final AtomicLong apiCallCount = new AtomicLong();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram apiLatency = new LatencyHistogram();
+
+    @Override
+    public void onCommandSubmitted(final ItemId id) {
+        submittedCount.incrementAndGet();
+    }
+
+    @Override
+    public void onCommandSkipped(final ItemId id) {
+        skippedCount.incrementAndGet();
+    }
+
+    @Override
+    public void onCommandExecuted(final ItemId id, final long queueWaitNanos) {
+        executedCount.incrementAndGet();
+        queueWait.record(queueWaitNanos);
+    }
+
+    @Override
+    public void onCommandSucceeded(final ItemId id, final long apiLatencyNanos) {
+        succeededCount.incrementAndGet();
+        apiLatency.record(apiLatencyNanos);
+    }
+
+    @Override
+    public void onCommandFailed(final ItemId id, final long apiLatencyNanos) {
+        failedCount.incrementAndGet();
+        apiLatency.record(apiLatencyNanos);
+    }
+
+    @Override
+    public void onCommandSuperseded(final ItemId id) {
+        supersededCount.incrementAndGet();
+    }
+
+    @Override
+    public void onApiCall(final int itemCount) {
+        apiCallCount.incrementAndGet();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public long getSucceededCount() {
+        return succeededCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getSupersededCount() {
+        return supersededCount.get();
+    }
+
+    /**
+     * @return calls of the {@link org.zalando.switchman.api.Api}, retries count as calls of their own
+     * and a batch as one call.
+     */
+    public long getApiCallCount() {
+        return apiCallCount.get();
+    }
+
+    /**
+     * @return share of the submitted commands that didn't need a call of their own, 0 if nothing was
+     * submitted. Calls are counted as they reached the {@link org.zalando.switchman.api.Api}, so retries
+     * lower the ratio and batches raise it, it is negative if there were more calls than commands.
+     */
+    public double getCallsSavedRatio() {
+        final long submitted = submittedCount.get();
+        return submitted == 0 ? 0 : 1 - (double) apiCallCount.get() / submitted;
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getApiLatency() {
+        return apiLatency;
+    }
+}
@@ -0,0 +1,14 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+/**
+ * Converts {@link ItemId}s to bytes and back, so they can outlive the process, for example in a
+ * {@link MappedCommandJournal}. {@code decode(encode(id))} has to be equal to {@code id}.
+ */
+public interface ItemIdCodec {
+
+    byte[] encode(ItemId id);
+
+    ItemId decode(byte[] bytes);
+}
@@ -3,102 +3,392 @@ package org.zalando.switchman.repo;
 import org.zalando.switchman.Item;
 import org.zalando.switchman.ItemId;
 import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.BatchApi;
+import org.zalando.switchman.api.ConditionalApi;
+import org.zalando.switchman.api.DeltaApi;
+import org.zalando.switchman.api.ItemListDelta;
+import org.zalando.switchman.api.VersionedItemList;
 
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import rx.Observable;
 import rx.Single;
-import rx.Subscriber;
-import rx.schedulers.Schedulers;
-import rx.subjects.PublishSubject;
+import rx.functions.Action0;
+import rx.subjects.BehaviorSubject;
 import rx.subjects.SerializedSubject;
 
 public class ItemRepositoryImpl implements ItemRepository {
 
     private final Api api;
+    private final DeltaApi deltaApi;
+    private final ConditionalApi conditionalApi;
     private final LocalStorage<ItemId> localStorage;
     private final ApiErrorConverter apiErrorConverter;
+    private final RepositoryConfig config;
+    private final CommandPipeline commandPipeline;
+    private final String collectionId;
 
-    private final SerializedSubject<Command, Command> inputCommandStream;
-    private final SerializedSubject<ResponseForCommand, ResponseForCommand> resultStream;
+    private final SerializedSubject<Integer, Integer> counter = BehaviorSubject.<Integer>create().toSerialized();
+
+    /**
+     * List last loaded from {@link ConditionalApi} with a version tag, returned again while the
+     * back end says it is not modified.
+     */
+    private volatile VersionedItemList lastItemList;
+
+    /**
+     * Guards loading of the whole list and of its changes. Every load gets the next generation, so
+     * a load that finishes after a later one doesn't overwrite its result.
+     */
+    private final Object itemListLock = new Object();
+    private Observable<Set<? extends Item<ItemId>>> itemListLoading;
+    private long itemListLoadingGeneration;
+    private long startedListGeneration;
+    private long appliedListGeneration;
+    private volatile CachedItemList cachedItemList;
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
 
     public ItemRepositoryImpl(final Api api, final ApiErrorConverter apiErrorConverter) {
-        this.api = api;
-        this.localStorage = new LocalStorage<>();
-        this.apiErrorConverter = apiErrorConverter;
+        this(api, apiErrorConverter, RepositoryConfig.builder().build());
+    }
+
+    /**
+     * If the api is a {@link BatchApi} and batching is configured, calls for different items are
+     * sent together, see {@link RepositoryConfig.Builder#batching(long, TimeUnit, int)}.
+     */
+    public ItemRepositoryImpl(final Api api, final ApiErrorConverter apiErrorConverter,
+                              final RepositoryConfig config) {
+        this(api, apiErrorConverter, config, CommandPipeline.create(config), null);
+    }
+
+    /**
+     * Creates a collection of the {@link CollectionRepository}, see
+     * {@link CollectionRepository#createCollection(String, Api, ApiErrorConverter)}.
+     *
+     * @throws IllegalArgumentException if the collection with the id was created already.
+     */
+    public ItemRepositoryImpl(final Api api, final ApiErrorConverter apiErrorConverter,
+                              final CollectionRepository collections, final String collectionId) {
+        this(api, apiErrorConverter, collections.getConfig(), collections.register(collectionId), collectionId);
+    }
 
-        //All Subjects but Serialized one are not Thread safe.
-        this.inputCommandStream = PublishSubject.<Command>create().toSerialized();
-        this.resultStream = PublishSubject.<ResponseForCommand>create().toSerialized();
+    private ItemRepositoryImpl(final Api api, final ApiErrorConverter apiErrorConverter,
+                               final RepositoryConfig config, final CommandPipeline commandPipeline,
+                               final String collectionId) {
+        this.api = createCommandApi(api, config);
+        this.deltaApi = api instanceof DeltaApi ? (DeltaApi) api : null;
+        this.conditionalApi = api instanceof ConditionalApi ? (ConditionalApi) api : null;
+        this.localStorage = new LocalStorage<>(counter::onNext);
+        this.apiErrorConverter = apiErrorConverter;
+        this.config = config;
+        this.commandPipeline = commandPipeline;
+        this.collectionId = collectionId;
 
-        init();
         localStorage.publishCounter();
+        restoreSnapshot();
+        replayJournal();
+    }
+
+    /**
+     * @return api the commands call, calls of which are reported to {@link RepositoryMetrics#onApiCall(int)}.
+     */
+    private static Api createCommandApi(final Api api, final RepositoryConfig config) {
+        if (api instanceof BatchApi && config.getMaxBatchSize() > 1) {
+            return new BatchingApi((BatchApi) api, config.getBatchWindowMillis(), config.getMaxBatchSize(),
+                    config.getTimerScheduler(), config.getMetrics());
+        }
+        return config.getMetrics() != RepositoryMetrics.NONE ? new MeasuredApi(api, config.getMetrics()) : api;
     }
 
-    private void init() {
-        inputCommandStream.groupBy(Command::getKey)
-                .subscribe(groupedObservable -> groupedObservable.observeOn(Schedulers.io())
-                        .onBackpressureLatest()
-                        .subscribe(new Subscriber<Command>() {
-                            private volatile Command lastCommand;
-
-                            @Override
-                            public void onStart() {
-                                super.onStart();
-                                requestNextCommand();
-                            }
-
-                            @Override
-                            public void onCompleted() {
-
-                            }
-
-                            @Override
-                            public void onError(Throwable e) {
-
-                            }
-
-                            @Override
-                            public void onNext(Command command) {
-                                if (shouldNotSkipCommand(command)) {
-                                    lastCommand = command;
-                                    command.execute()
-                                            .subscribeOn(Schedulers.io())
-                                            .doOnSuccess(apiResponse -> {
-                                                if (!apiResponse.isSuccessful()) {
-                                                    localStorage.publishCounter();
-                                                    lastCommand = null;
-                                                }
-                                            })
-                                            .map(response -> new ResponseForCommand(command, response))
-                                            .doOnSuccess(resultStream::onNext)
-                                            .subscribe(ignored -> requestNextCommand());
-                                } else {
-                                    resultStream.onNext(new ResponseForCommand(command, Response.createSkippedResponse()));
-                                    requestNextCommand();
-                                }
-                            }
-
-                            private boolean shouldNotSkipCommand(Command command) {
-                                return lastCommand == null || !lastCommand.isSame(command);
-                            }
-
-                            private void requestNextCommand() {
-                                request(1);
-                            }
-                        }));
+    /**
+     * Reads the saved list in background, it is applied only if the list isn't loaded by then.
+     * A file that can't be read is ignored, the list is loaded from the back end anyway.
+     */
+    private void restoreSnapshot() {
+        final SnapshotFile snapshotFile = config.getSnapshotFile();
+        if (snapshotFile == null) {
+            return;
+        }
+        Single.fromCallable(snapshotFile::read)
+                .subscribeOn(config.getCommandScheduler())
+                .subscribe(ids -> {
+                    if (localStorage.restore(ids)) {
+                        localStorage.publishCounter();
+                    }
+                }, ignored -> { });
     }
 
+    private void saveSnapshot() {
+        final SnapshotFile snapshotFile = config.getSnapshotFile();
+        if (snapshotFile == null) {
+            return;
+        }
+        Single.fromCallable(() -> {
+            snapshotFile.write(localStorage.snapshot());
+            return null;
+        }).subscribeOn(config.getCommandScheduler())
+                .subscribe(ignored -> { }, ignored -> { });
+    }
+
+    /**
+     * Launches commands that were not finished by the previous instance, nobody waits for their results.
+     */
+    private void replayJournal() {
+        for (CommandJournal.Intent intent : config.getJournal().getPendingIntents()) {
+            final Single<Response> command = intent.isAddition()
+                    ? addItem(intent.getItemId())
+                    : removeItem(intent.getItemId());
+            command.subscribe();
+        }
+    }
+
+    /**
+     * @return amount of idle command queues that were torn down so far, of all collections if the
+     * repository is a collection of a {@link CollectionRepository}. Always 0 with
+     * {@link RepositoryConfig.Builder#commandLanes(int)}, lanes don't keep queues per item.
+     */
+    public long getEvictedGroupCount() {
+        return commandPipeline.getEvictedGroupCount();
+    }
+
+    /**
+     * Subscribers that come while the list is being loaded share that load, so the storage is
+     * refreshed and the counter is published once for all of them.
+     * <p>
+     * With a {@link ConditionalApi} the list is requested with the tag of the previous one, the
+     * storage and the counter stay as they are if it is not modified.
+     */
     @Override
     public Single<Set<? extends Item<ItemId>>> getItemList() {
-        return api.getItemList()
-                .doOnSuccess(localStorage::refreshLocalStorage)
-                .doOnSuccess(ignored -> localStorage.publishCounter());
+        return Single.defer(this::joinItemListLoading);
+    }
+
+    private Single<Set<? extends Item<ItemId>>> joinItemListLoading() {
+        synchronized (itemListLock) {
+            if (itemListLoading == null) {
+                final long generation = ++startedListGeneration;
+                itemListLoadingGeneration = generation;
+                itemListLoading = loadItemList(generation).toObservable()
+                        .doOnTerminate(() -> finishItemListLoading(generation))
+                        .cache();
+            }
+            return itemListLoading.toSingle();
+        }
+    }
+
+    private void finishItemListLoading(final long generation) {
+        synchronized (itemListLock) {
+            if (itemListLoadingGeneration == generation) {
+                itemListLoading = null;
+            }
+        }
+    }
+
+    private Single<Set<? extends Item<ItemId>>> loadItemList(final long generation) {
+        if (conditionalApi == null) {
+            return api.getItemList()
+                    .doOnSuccess(items -> onItemListLoaded(generation, items,
+                            () -> localStorage.refreshLocalStorage(items)));
+        }
+        final VersionedItemList previousItemList = lastItemList;
+        return conditionalApi.getItemList(previousItemList != null ? previousItemList.getVersionTag() : null)
+                .map(itemList -> {
+                    if (itemList.isNotModified()) {
+                        if (previousItemList == null) {
+                            throw new IllegalStateException("List is not modified but it wasn't loaded yet");
+                        }
+                        renewCachedItemList(previousItemList.getItems());
+                        return previousItemList.getItems();
+                    }
+                    onItemListLoaded(generation, itemList.getItems(), () -> {
+                        lastItemList = itemList.getVersionTag() != null ? itemList : null;
+                        localStorage.refreshLocalStorage(itemList.getItems());
+                    });
+                    return itemList.getItems();
+                });
+    }
+
+    /**
+     * Refreshes the storage with a whole list, unless a list requested after it was applied already.
+     *
+     * @param items loaded items to cache, null if only their ids were loaded.
+     */
+    private void onItemListLoaded(final long generation, final Set<? extends Item<ItemId>> items,
+                                  final Action0 refresh) {
+        synchronized (itemListLock) {
+            if (generation < appliedListGeneration) {
+                return;
+            }
+            appliedListGeneration = generation;
+            refresh.call();
+            if (items != null) {
+                cachedItemList = new CachedItemList(items, config.getClock().nanoTime());
+            }
+        }
+        localStorage.publishCounter();
+        saveSnapshot();
+    }
+
+    /**
+     * @return the list of items taken according to the policy, {@link #getItemList()} is the same as
+     * {@link FetchPolicy#NETWORK_ONLY}. The cached list includes the changes made since it was loaded,
+     * items added since then are represented by their ids only.
+     */
+    public Single<Set<? extends Item<ItemId>>> getItemList(final FetchPolicy fetchPolicy) {
+        if (fetchPolicy == FetchPolicy.NETWORK_ONLY) {
+            return getItemList();
+        }
+        return Single.defer(() -> {
+            final CachedItemList cached = cachedItemList;
+            if (cached == null) {
+                cacheMissCount.incrementAndGet();
+                return fetchPolicy == FetchPolicy.CACHE_ONLY
+                        ? Single.<Set<? extends Item<ItemId>>>error(
+                                new IllegalStateException("List of items wasn't loaded yet"))
+                        : getItemList();
+            }
+            cacheHitCount.incrementAndGet();
+            final Set<? extends Item<ItemId>> items = mergeWithLocalChanges(cached.items);
+            if (fetchPolicy == FetchPolicy.CACHE_THEN_NETWORK && isStale(cached)) {
+                getItemList().subscribe(ignored -> { }, ignored -> { });
+            }
+            return Single.<Set<? extends Item<ItemId>>>just(items);
+        });
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * @return amount of calls with {@link FetchPolicy#CACHE_ONLY} or {@link FetchPolicy#CACHE_THEN_NETWORK}
+     * that came before the list was loaded.
+     */
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    /**
+     * @return share of the calls with a cache policy that were answered from the cache, 0 if there
+     * were none.
+     */
+    public double getCacheHitRatio() {
+        final long hits = cacheHitCount.get();
+        final long total = hits + cacheMissCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private boolean isStale(final CachedItemList cached) {
+        return config.getClock().nanoTime() - cached.loadedAtNanos
+                >= TimeUnit.MILLISECONDS.toNanos(config.getItemListTtlMillis());
+    }
+
+    private void renewCachedItemList(final Set<? extends Item<ItemId>> items) {
+        synchronized (itemListLock) {
+            final CachedItemList cached = cachedItemList;
+            if (cached != null && cached.items == items) {
+                cachedItemList = new CachedItemList(items, config.getClock().nanoTime());
+            }
+        }
+    }
+
+    private Set<? extends Item<ItemId>> mergeWithLocalChanges(final Set<? extends Item<ItemId>> cachedItems) {
+        final LocalStorage.Snapshot<ItemId> snapshot = localStorage.snapshot();
+        final Set<Item<ItemId>> items = new HashSet<>(cachedItems.size() * 4 / 3 + 1);
+        final Set<ItemId> ids = new HashSet<>(cachedItems.size() * 4 / 3 + 1);
+        for (Item<ItemId> item : cachedItems) {
+            ids.add(item.getId());
+            if (snapshot.contains(item.getId())) {
+                items.add(item);
+            }
+        }
+        addMissingItems(snapshot, snapshot.getAddedItems(), ids, items);
+        addMissingItems(snapshot, snapshot.getItemsDuringAddition(), ids, items);
+        return items;
+    }
+
+    private static void addMissingItems(final LocalStorage.Snapshot<ItemId> snapshot,
+                                        final Iterable<ItemId> candidates, final Set<ItemId> ids,
+                                        final Set<Item<ItemId>> items) {
+        for (ItemId id : candidates) {
+            if (snapshot.contains(id) && ids.add(id)) {
+                items.add(() -> id);
+            }
+        }
     }
 
+    /**
+     * Brings the list up to date with a {@link DeltaApi}: only changes since the previous
+     * synchronisation are loaded and applied. The whole list is loaded the first time and when the
+     * back end doesn't know the previous sync token anymore.
+     *
+     * @return changes that were loaded, the whole list if it was loaded.
+     */
+    public Single<ItemListDelta> syncItemList() {
+        if (deltaApi == null) {
+            return Single.error(new UnsupportedOperationException("Api doesn't implement DeltaApi"));
+        }
+        return Single.defer(() -> loadChanges(localStorage.getSyncToken()));
+    }
+
+    /**
+     * Changes get a generation like loads of the whole list, so neither changes nor a list that
+     * finish after a later one overwrite its result.
+     */
+    private Single<ItemListDelta> loadChanges(final String baseSyncToken) {
+        final long generation;
+        synchronized (itemListLock) {
+            generation = ++startedListGeneration;
+        }
+        return deltaApi.getChangesSince(baseSyncToken).flatMap(delta -> {
+            if (delta.isTokenExpired()) {
+                return baseSyncToken != null
+                        ? loadChanges(null)
+                        : Single.<ItemListDelta>error(new IllegalStateException("Token expired without token"));
+            }
+            if (baseSyncToken == null) {
+                onItemListLoaded(generation, null,
+                        () -> localStorage.refreshLocalStorage(delta.getAddedIds(), delta.getSyncToken()));
+            } else {
+                onChangesLoaded(generation, baseSyncToken, delta);
+            }
+            return Single.just(delta);
+        });
+    }
+
+    private void onChangesLoaded(final long generation, final String baseSyncToken, final ItemListDelta delta) {
+        synchronized (itemListLock) {
+            if (generation < appliedListGeneration || !localStorage.applyChanges(baseSyncToken,
+                    delta.getAddedIds(), delta.getRemovedIds(), delta.getSyncToken())) {
+                return;
+            }
+            appliedListGeneration = generation;
+        }
+        localStorage.publishCounter();
+        saveSnapshot();
+    }
+
+    /**
+     * Only changes of the counter are emitted. With
+     * {@link RepositoryConfig.Builder#counterFrameInterval(long, TimeUnit)} the current value comes
+     * right away and then the latest one at most once per frame.
+     */
     @Override
     public Observable<Integer> getCounter() {
-        return localStorage.getCounter();
+        final long frameIntervalMillis = config.getCounterFrameIntervalMillis();
+        if (frameIntervalMillis == 0) {
+            return counter
+                    .onBackpressureLatest();
+        }
+        return counter
+                .publish(counterValues -> Observable.merge(counterValues.take(1),
+                        counterValues.skip(1).sample(frameIntervalMillis, TimeUnit.MILLISECONDS, config.getTimerScheduler())))
+                .distinctUntilChanged()
+                .onBackpressureLatest();
     }
 
     @Override
@@ -106,49 +396,37 @@ public class ItemRepositoryImpl implements ItemRepository {
         return localStorage.contains(id);
     }
 
+    /**
+     * @return immutable state of the collection, handy when many items are checked at once,
+     * for example while binding a whole screen.
+     */
+    public LocalStorage.Snapshot<ItemId> snapshot() {
+        return localStorage.snapshot();
+    }
+
     @Override
     public Single<Response> addItem(final ItemId id) {
-        return launchCommand(new Add(id, System.nanoTime(), localStorage,  api, apiErrorConverter));
+        return commandPipeline.launch(new Add(id, keyOf(id), config.getClock().nanoTime(), localStorage, api,
+                apiErrorConverter, commandPipeline.getRetrier()));
     }
 
     @Override
     public Single<Response> removeItem(final ItemId id) {
-        return launchCommand(new Remove(id, System.nanoTime(), localStorage, api, apiErrorConverter));
+        return commandPipeline.launch(new Remove(id, keyOf(id), config.getClock().nanoTime(), localStorage, api,
+                apiErrorConverter, commandPipeline.getRetrier()));
     }
 
-    private Single<Response> launchCommand(Command command) {
-        return Single.just(command)
-                .doOnSubscribe(command::preExecute)
-                .doOnSuccess(inputCommandStream::onNext)
-                .flatMap(it -> prepareCommandResultSingles(resultStream, it));
-    }
-
-    /**
-     * @return Single that emits single response for the proper command,
-     * also checked, if response came for Command that was created after provided one,
-     * then replaced result with skipped {@link Response}
-     */
-    private Single<Response> prepareCommandResultSingles(
-            final Observable<ResponseForCommand> input, final Command command) {
-        return input.filter(responseForCommand -> command.hasSameItemId(responseForCommand.command))
-                .filter(responseForCommand -> responseForCommand.command.isNotBefore(command))
-                .limit(1)
-                .toSingle()
-                .map(responseForCommand -> {
-                    if (responseForCommand.command.getTimestamp() != command.getTimestamp()) {
-                        return Response.createSkippedResponse();
-                    }
-                    return responseForCommand.response;
-                });
+    private ItemId keyOf(final ItemId id) {
+        return collectionId != null ? new CollectionItemId(collectionId, id) : id;
     }
 
-    private class ResponseForCommand {
-        final Command command;
-        final Response response;
+    private static final class CachedItemList {
+        final Set<? extends Item<ItemId>> items;
+        final long loadedAtNanos;
 
-        private ResponseForCommand(Command command, Response response) {
-            this.command = command;
-            this.response = response;
+        private CachedItemList(final Set<? extends Item<ItemId>> items, final long loadedAtNanos) {
+            this.items = items;
+            this.loadedAtNanos = loadedAtNanos;
         }
     }
 }
@@ -0,0 +1,95 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+
+/**
+ * Pipeline with a fixed amount of lanes: every item is hashed onto one of them, and a lane runs on
+ * at most one worker of the command scheduler at a time, so no more threads are used than there are
+ * lanes, however many items have pending commands. A lane takes the worker only while it has
+ * commands or completions to process, so idle lanes hold no thread, and repositories that should
+ * share lanes are collections of one {@link CollectionRepository}.
+ * <p>
+ * A lane processes its events one at a time, so the state of its items needs no lock: an item is in
+ * the map while one of its commands is executing, together with the latest command that came
+ * meanwhile, if any. Calls to the back end are subscribed right on the lane and only their completion
+ * comes back to it, so an executing command holds the lane only as long as its
+ * {@link org.zalando.switchman.api.Api} call blocks the subscribing thread.
+ */
+class LaneCommandPipeline extends CommandPipeline {
+
+    private final Lane[] lanes;
+
+    LaneCommandPipeline(final RepositoryConfig config) {
+        super(config);
+        this.lanes = new Lane[config.getCommandLaneCount()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(config.getCommandScheduler());
+        }
+    }
+
+    @Override
+    void dispatch(final Command command) {
+        laneOf(command.getKey()).offer(command);
+    }
+
+    private Lane laneOf(final ItemId key) {
+        final int hash = key.hashCode();
+        return lanes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    /**
+     * Launched commands and completions of the back end calls enter through the same
+     * {@link CommandIntake}, which runs them one at a time on a worker of the command scheduler.
+     */
+    private final class Lane {
+        private final CommandIntake<Action0> events;
+
+        /**
+         * Items with an executing command, mapped to the latest command that came meanwhile or to null.
+         */
+        private final Map<ItemId, Command> executingItems = new HashMap<>();
+
+        private Lane(final Scheduler scheduler) {
+            this.events = new CommandIntake<>(scheduler, Action0::call);
+        }
+
+        private void offer(final Command command) {
+            events.offer(() -> onCommand(command));
+        }
+
+        private void onCommand(final Command command) {
+            if (executingItems.containsKey(command.getKey())) {
+                executingItems.put(command.getKey(), command);
+            } else {
+                executingItems.put(command.getKey(), null);
+                run(command);
+            }
+        }
+
+        private void run(final Command command) {
+            if (command.isReconciliationNeeded()) {
+                execute(command)
+                        .subscribe(ignored -> events.offer(() -> onCommandFinished(command.getKey())));
+            } else {
+                skip(command);
+                onCommandFinished(command.getKey());
+            }
+        }
+
+        private void onCommandFinished(final ItemId key) {
+            final Command nextCommand = executingItems.get(key);
+            if (nextCommand == null) {
+                executingItems.remove(key);
+            } else {
+                executingItems.put(key, null);
+                run(nextCommand);
+            }
+        }
+    }
+}
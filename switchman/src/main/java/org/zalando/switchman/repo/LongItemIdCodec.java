@@ -0,0 +1,34 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+
+/**
+ * {@link ItemIdCodec} of {@link LongItemId}s, every id takes 8 bytes, big-endian.
+ */
+public final class LongItemIdCodec implements ItemIdCodec {
+
+    private static final int SIZE = 8;
+
+    @Override
+    public byte[] encode(final ItemId id) {
+        final long value = ((LongItemId) id).getValue();
+        final byte[] bytes = new byte[SIZE];
+        for (int i = SIZE - 1, shift = 0; i >= 0; i--, shift += 8) {
+            bytes[i] = (byte) (value >>> shift);
+        }
+        return bytes;
+    }
+
+    @Override
+    public ItemId decode(final byte[] bytes) {
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Expected " + SIZE + " bytes but there were " + bytes.length);
+        }
+        long value = 0;
+        for (byte b : bytes) {
+            value = (value << 8) | (b & 0xFF);
+        }
+        return LongItemId.of(value);
+    }
+}
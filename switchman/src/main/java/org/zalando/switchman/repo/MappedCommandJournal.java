@@ -0,0 +1,340 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * {@link CommandJournal} that appends records to a memory-mapped file. An append is a few writes
+ * to memory, the data reaches the disk with the page cache, so it survives a crash of the process.
+ * To survive a crash of the device as well, the file is forced to the disk once per sync delay for
+ * all the records appended during it.
+ * <p>
+ * The latest intent of every pending item is kept in memory too. Once the file is half way from its
+ * compacted size to full it is rewritten with those intents only on the sync worker, records appended
+ * meanwhile are copied to the new file before it replaces the current one. Only if the file gets full
+ * before that it is rewritten right away by the caller. The same happens when it is opened.
+ * <p>
+ * Format is a header of magic number and version followed by records of type byte, length of the
+ * id as unsigned short and the id encoded by {@link ItemIdCodec}. Type is written last and the file
+ * is zero filled, so a record torn by a crash reads as the end of the journal.
+ */
+public final class MappedCommandJournal implements CommandJournal, Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    public static final long DEFAULT_SYNC_DELAY_MILLIS = 100;
+
+    private static final int MAGIC = 0x53574a4c;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 3;
+    private static final int MAX_ID_SIZE = 0xFFFF;
+
+    private static final byte END = 0;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte SETTLED = 3;
+
+    private final File file;
+    private final ItemIdCodec codec;
+    private final int capacity;
+    private final Scheduler.Worker syncWorker;
+    private final long syncDelayMillis;
+
+    private final Map<ItemId, Boolean> pendingIntents = new LinkedHashMap<>();
+    private MappedByteBuffer buffer;
+    private boolean isSyncScheduled;
+    private int compactionThreshold;
+    private boolean isCompactionScheduled;
+
+    /**
+     * Records appended while the sync worker writes the compacted file, null if it doesn't.
+     */
+    private List<Record> compactionTail;
+
+    private MappedCommandJournal(final File file, final ItemIdCodec codec, final int capacity,
+                                 final Scheduler syncScheduler, final long syncDelayMillis) {
+        this.file = file;
+        this.codec = codec;
+        this.capacity = capacity;
+        this.syncWorker = syncScheduler.createWorker();
+        this.syncDelayMillis = syncDelayMillis;
+    }
+
+    public static MappedCommandJournal open(final File file, final ItemIdCodec codec) throws IOException {
+        return open(file, codec, DEFAULT_CAPACITY, Schedulers.io(), DEFAULT_SYNC_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads intents that were pending when the journal was used last time and compacts the file.
+     *
+     * @param capacity size of the file in bytes, it has to fit the latest intent of every item
+     *                 that can be pending at the same time.
+     */
+    public static MappedCommandJournal open(final File file, final ItemIdCodec codec, final int capacity,
+                                            final Scheduler syncScheduler, final long syncDelay,
+                                            final TimeUnit unit) throws IOException {
+        if (capacity <= HEADER_SIZE) {
+            throw new IllegalArgumentException("capacity > " + HEADER_SIZE + " required but it was " + capacity);
+        }
+        final MappedCommandJournal journal =
+                new MappedCommandJournal(file, codec, capacity, syncScheduler, unit.toMillis(syncDelay));
+        if (file.exists()) {
+            journal.read();
+        }
+        journal.compact();
+        return journal;
+    }
+
+    @Override
+    public synchronized void recordIntent(final ItemId id, final boolean isAddition) {
+        pendingIntents.remove(id);
+        pendingIntents.put(id, isAddition);
+        append(isAddition ? ADD : REMOVE, id);
+    }
+
+    @Override
+    public synchronized void recordSettled(final ItemId id) {
+        if (pendingIntents.remove(id) != null) {
+            append(SETTLED, id);
+        }
+    }
+
+    @Override
+    public synchronized List<Intent> getPendingIntents() {
+        final List<Intent> intents = new ArrayList<>(pendingIntents.size());
+        for (Map.Entry<ItemId, Boolean> entry : pendingIntents.entrySet()) {
+            intents.add(new Intent(entry.getKey(), entry.getValue()));
+        }
+        return intents;
+    }
+
+    /**
+     * Forces the records appended so far to the disk.
+     */
+    public void sync() {
+        final MappedByteBuffer buffer;
+        synchronized (this) {
+            isSyncScheduled = false;
+            buffer = this.buffer;
+        }
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        syncWorker.unsubscribe();
+        sync();
+    }
+
+    private void append(final byte type, final ItemId id) {
+        final byte[] encodedId = codec.encode(id);
+        if (encodedId.length > MAX_ID_SIZE) {
+            throw new IllegalArgumentException("Encoded id can't be longer than " + MAX_ID_SIZE
+                    + " bytes but it was " + encodedId.length);
+        }
+        if (buffer.remaining() < RECORD_HEADER_SIZE + encodedId.length) {
+            if (compactionTail != null) {
+                awaitCompaction();
+            }
+            if (buffer.remaining() < RECORD_HEADER_SIZE + encodedId.length) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to compact journal " + file, e);
+                }
+                if (type == SETTLED) {
+                    return;
+                }
+                if (buffer.remaining() < RECORD_HEADER_SIZE + encodedId.length) {
+                    throw new IllegalStateException("Journal " + file + " is full, capacity is " + capacity);
+                }
+            }
+        }
+        put(buffer, type, encodedId);
+        if (compactionTail != null) {
+            compactionTail.add(new Record(type, encodedId));
+        }
+        scheduleSync();
+        scheduleCompaction();
+    }
+
+    private static void put(final ByteBuffer records, final byte type, final byte[] encodedId) {
+        final int position = records.position();
+        records.position(position + 1);
+        records.putShort((short) encodedId.length);
+        records.put(encodedId);
+        records.put(position, type);
+    }
+
+    private void awaitCompaction() {
+        boolean isInterrupted = false;
+        while (compactionTail != null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (!isCompactionScheduled && buffer.position() > compactionThreshold) {
+            isCompactionScheduled = true;
+            syncWorker.schedule(this::compactInBackground);
+        }
+    }
+
+    /**
+     * Writes and forces the compacted file without holding the lock of the journal, so appends
+     * don't wait for the disk meanwhile. If it fails, the file is compacted once it is full.
+     */
+    private void compactInBackground() {
+        final Map<ItemId, Boolean> intents;
+        synchronized (this) {
+            isCompactionScheduled = false;
+            if (buffer.position() <= compactionThreshold) {
+                return;
+            }
+            intents = new LinkedHashMap<>(pendingIntents);
+            compactionTail = new ArrayList<>();
+        }
+        final File compactedFile = new File(file.getPath() + ".compacting");
+        MappedByteBuffer compacted = null;
+        try {
+            compacted = writeCompacted(compactedFile, intents);
+            compacted.force();
+        } catch (IOException | IllegalStateException e) {
+            compacted = null;
+        }
+        synchronized (this) {
+            try {
+                if (compacted != null && fits(compacted, compactionTail)) {
+                    for (Record record : compactionTail) {
+                        put(compacted, record.type, record.encodedId);
+                    }
+                    if (compactedFile.renameTo(file)) {
+                        swap(compacted);
+                        scheduleSync();
+                    }
+                }
+            } finally {
+                compactionTail = null;
+                notifyAll();
+            }
+        }
+    }
+
+    private static boolean fits(final ByteBuffer records, final List<Record> tail) {
+        int size = 0;
+        for (Record record : tail) {
+            size += RECORD_HEADER_SIZE + record.encodedId.length;
+        }
+        return records.remaining() >= size;
+    }
+
+    private void scheduleSync() {
+        if (!isSyncScheduled) {
+            isSyncScheduled = true;
+            syncWorker.schedule(this::sync, syncDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void read() throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            final ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (records.remaining() < HEADER_SIZE || records.getInt() != MAGIC) {
+                throw new IOException(file + " is not a command journal");
+            }
+            final short version = records.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of journal " + file);
+            }
+            records.position(HEADER_SIZE);
+            while (records.remaining() >= RECORD_HEADER_SIZE) {
+                final byte type = records.get();
+                final int length = records.getShort() & MAX_ID_SIZE;
+                if (type == END || records.remaining() < length) {
+                    break;
+                }
+                final byte[] encodedId = new byte[length];
+                records.get(encodedId);
+                final ItemId id = codec.decode(encodedId);
+                pendingIntents.remove(id);
+                if (type != SETTLED) {
+                    pendingIntents.put(id, type == ADD);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes pending intents to a new file that replaces the current one, so a crash in the middle
+     * leaves the previous journal intact.
+     */
+    private void compact() throws IOException {
+        final File compactedFile = new File(file.getPath() + ".compacting");
+        final MappedByteBuffer compacted = writeCompacted(compactedFile, pendingIntents);
+        compacted.force();
+        if (!compactedFile.renameTo(file)) {
+            throw new IOException("Failed to replace " + file + " with " + compactedFile);
+        }
+        swap(compacted);
+    }
+
+    private MappedByteBuffer writeCompacted(final File compactedFile, final Map<ItemId, Boolean> intents)
+            throws IOException {
+        if (compactedFile.exists() && !compactedFile.delete()) {
+            throw new IOException("Failed to delete " + compactedFile);
+        }
+        final MappedByteBuffer compacted;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(compactedFile, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            compacted = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        compacted.putInt(MAGIC);
+        compacted.putShort(VERSION);
+        compacted.position(HEADER_SIZE);
+        for (Map.Entry<ItemId, Boolean> entry : intents.entrySet()) {
+            final byte[] encodedId = codec.encode(entry.getKey());
+            if (compacted.remaining() < RECORD_HEADER_SIZE + encodedId.length) {
+                throw new IllegalStateException("Journal " + file + " is full, capacity is " + capacity);
+            }
+            put(compacted, entry.getValue() ? ADD : REMOVE, encodedId);
+        }
+        return compacted;
+    }
+
+    private void swap(final MappedByteBuffer compacted) {
+        buffer = compacted;
+        compactionThreshold = compacted.position() + (capacity - compacted.position()) / 2;
+    }
+
+    private static final class Record {
+        final byte type;
+        final byte[] encodedId;
+
+        private Record(final byte type, final byte[] encodedId) {
+            this.type = type;
+            this.encodedId = encodedId;
+        }
+    }
+}
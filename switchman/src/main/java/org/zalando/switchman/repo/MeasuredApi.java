@@ -0,0 +1,42 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.Set;
+
+import rx.Single;
+
+/**
+ * {@link Api} that reports every call for a single item to {@link RepositoryMetrics#onApiCall(int)},
+ * every attempt of a retried command is a call of its own. Batches are reported by {@link BatchingApi}.
+ */
+class MeasuredApi implements Api {
+
+    private final Api api;
+    private final RepositoryMetrics metrics;
+
+    MeasuredApi(final Api api, final RepositoryMetrics metrics) {
+        this.api = api;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Single<Set<? extends Item<ItemId>>> getItemList() {
+        return api.getItemList();
+    }
+
+    @Override
+    public Single<ApiResponse> addItem(final ItemId id) {
+        metrics.onApiCall(1);
+        return api.addItem(id);
+    }
+
+    @Override
+    public Single<ApiResponse> removeItem(final ItemId id) {
+        metrics.onApiCall(1);
+        return api.removeItem(id);
+    }
+}
@@ -0,0 +1,255 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.SingleSubscriber;
+import rx.Subscription;
+import rx.exceptions.Exceptions;
+import rx.functions.Action0;
+import rx.plugins.RxJavaHooks;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Routing table between launched commands and their callers. Callers are indexed by
+ * {@link ItemId}, so a result is delivered by looking up its own key only, no matter how many
+ * commands are pending for other items.
+ * <p>
+ * Records for the {@link CommandJournal} are queued under the same lock, so the journal sees the
+ * intent and the settlement of every item in the order they happened, but they are written after it
+ * is released, so neither callers nor completions of other items wait for the journal. A caller
+ * returns from {@link #register(Command, SingleSubscriber)} only once its intent is written.
+ */
+class PendingCommandRegistry {
+
+    private final CommandJournal journal;
+    private final RepositoryMetrics metrics;
+
+    private final Map<ItemId, List<PendingCommand>> pendingCommandsByKey = new HashMap<>();
+    private final Map<ItemId, List<SupersedeListener>> supersedeListenersByKey = new HashMap<>();
+    private final ArrayDeque<JournalRecord> journalRecords = new ArrayDeque<>();
+    private final Object journalLock = new Object();
+
+    PendingCommandRegistry(final CommandJournal journal, final RepositoryMetrics metrics) {
+        this.journal = journal;
+        this.metrics = metrics;
+    }
+
+    void register(final Command command, final SingleSubscriber<? super Response> subscriber) {
+        final List<SupersedeListener> supersedeListeners;
+        synchronized (this) {
+            queueJournalRecord(command.getKey(), command.getDesiredMembership());
+            List<PendingCommand> pendingCommands = pendingCommandsByKey.get(command.getKey());
+            if (pendingCommands == null) {
+                pendingCommands = new ArrayList<>(2);
+                pendingCommandsByKey.put(command.getKey(), pendingCommands);
+            }
+            pendingCommands.add(new PendingCommand(command, subscriber));
+            supersedeListeners = takeSupersedeListeners(command);
+        }
+        writeJournalRecords();
+        for (SupersedeListener supersedeListener : supersedeListeners) {
+            supersedeListener.action.call();
+        }
+    }
+
+    /**
+     * Runs the action as soon as a command for the same key, launched after the given one, is
+     * registered. If there is such a command already, the action is run right away.
+     *
+     * @return subscription that cancels the listener.
+     */
+    Subscription onSuperseded(final Command command, final Action0 action) {
+        synchronized (this) {
+            if (!hasNewerCommand(command)) {
+                final SupersedeListener supersedeListener = new SupersedeListener(command, action);
+                List<SupersedeListener> supersedeListeners = supersedeListenersByKey.get(command.getKey());
+                if (supersedeListeners == null) {
+                    supersedeListeners = new ArrayList<>(1);
+                    supersedeListenersByKey.put(command.getKey(), supersedeListeners);
+                }
+                supersedeListeners.add(supersedeListener);
+                return Subscriptions.create(() -> removeSupersedeListener(supersedeListener));
+            }
+        }
+        action.call();
+        return Subscriptions.unsubscribed();
+    }
+
+    /**
+     * Runs the action while no new command for the key can be registered.
+     *
+     * @return true if there was no pending command for the key and the action was run.
+     */
+    synchronized boolean runIfNoPendingCommands(final ItemId key, final Action0 action) {
+        if (pendingCommandsByKey.containsKey(key)) {
+            return false;
+        }
+        action.call();
+        return true;
+    }
+
+    /**
+     * Delivers the response to the caller of the command. Callers of the same key that launched their
+     * commands before it are superseded by it and receive skipped {@link Response}.
+     */
+    void complete(final Command command, final Response response) {
+        final List<PendingCommand> completed = takeUntil(command);
+        writeJournalRecords();
+        for (PendingCommand pendingCommand : completed) {
+            if (pendingCommand.command == command) {
+                pendingCommand.deliver(response);
+            } else {
+                metrics.onCommandSuperseded(command.getKey());
+                pendingCommand.deliver(Response.createSkippedResponse());
+            }
+        }
+    }
+
+    private synchronized List<PendingCommand> takeUntil(final Command command) {
+        final List<PendingCommand> pendingCommands = pendingCommandsByKey.get(command.getKey());
+        if (pendingCommands == null) {
+            return new ArrayList<>(0);
+        }
+
+        final List<PendingCommand> completed = new ArrayList<>(pendingCommands.size());
+        for (int i = pendingCommands.size() - 1; i >= 0; i--) {
+            final PendingCommand pendingCommand = pendingCommands.get(i);
+            if (pendingCommand.command.getTimestamp() <= command.getTimestamp()) {
+                completed.add(pendingCommand);
+                pendingCommands.remove(i);
+            }
+        }
+        if (pendingCommands.isEmpty()) {
+            pendingCommandsByKey.remove(command.getKey());
+            queueJournalRecord(command.getKey(), null);
+        }
+        return completed;
+    }
+
+    /**
+     * @param isAddition desired membership of the intent or null if the item is settled.
+     */
+    private void queueJournalRecord(final ItemId key, final Boolean isAddition) {
+        if (journal != CommandJournal.NONE) {
+            journalRecords.add(new JournalRecord(key, isAddition));
+        }
+    }
+
+    /**
+     * Whoever holds the journal lock writes the records queued by everyone, so once a caller gets it
+     * its own records are written, either by itself or by the previous holder.
+     */
+    private void writeJournalRecords() {
+        if (journal == CommandJournal.NONE) {
+            return;
+        }
+        synchronized (journalLock) {
+            while (true) {
+                final JournalRecord journalRecord;
+                synchronized (this) {
+                    journalRecord = journalRecords.poll();
+                }
+                if (journalRecord == null) {
+                    return;
+                }
+                if (journalRecord.isAddition != null) {
+                    journal.recordIntent(journalRecord.key, journalRecord.isAddition);
+                } else {
+                    journal.recordSettled(journalRecord.key);
+                }
+            }
+        }
+    }
+
+    private boolean hasNewerCommand(final Command command) {
+        final List<PendingCommand> pendingCommands = pendingCommandsByKey.get(command.getKey());
+        if (pendingCommands != null) {
+            for (PendingCommand pendingCommand : pendingCommands) {
+                if (pendingCommand.command.getTimestamp() > command.getTimestamp()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<SupersedeListener> takeSupersedeListeners(final Command newCommand) {
+        final List<SupersedeListener> supersedeListeners = supersedeListenersByKey.get(newCommand.getKey());
+        if (supersedeListeners == null) {
+            return new ArrayList<>(0);
+        }
+
+        final List<SupersedeListener> superseded = new ArrayList<>(supersedeListeners.size());
+        for (int i = supersedeListeners.size() - 1; i >= 0; i--) {
+            final SupersedeListener supersedeListener = supersedeListeners.get(i);
+            if (supersedeListener.command.getTimestamp() < newCommand.getTimestamp()) {
+                superseded.add(supersedeListener);
+                supersedeListeners.remove(i);
+            }
+        }
+        if (supersedeListeners.isEmpty()) {
+            supersedeListenersByKey.remove(newCommand.getKey());
+        }
+        return superseded;
+    }
+
+    private synchronized void removeSupersedeListener(final SupersedeListener supersedeListener) {
+        final ItemId key = supersedeListener.command.getKey();
+        final List<SupersedeListener> supersedeListeners = supersedeListenersByKey.get(key);
+        if (supersedeListeners != null && supersedeListeners.remove(supersedeListener)
+                && supersedeListeners.isEmpty()) {
+            supersedeListenersByKey.remove(key);
+        }
+    }
+
+    private static final class JournalRecord {
+        final ItemId key;
+        final Boolean isAddition;
+
+        private JournalRecord(final ItemId key, final Boolean isAddition) {
+            this.key = key;
+            this.isAddition = isAddition;
+        }
+    }
+
+    private static final class SupersedeListener {
+        final Command command;
+        final Action0 action;
+
+        private SupersedeListener(final Command command, final Action0 action) {
+            this.command = command;
+            this.action = action;
+        }
+    }
+
+    private static final class PendingCommand {
+        final Command command;
+        final SingleSubscriber<? super Response> subscriber;
+
+        private PendingCommand(final Command command, final SingleSubscriber<? super Response> subscriber) {
+            this.command = command;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * A caller that throws on the response is reported to {@link RxJavaHooks#onError(Throwable)},
+         * so it can't keep the others from getting theirs or the command from being finished.
+         */
+        void deliver(final Response response) {
+            if (!subscriber.isUnsubscribed()) {
+                try {
+                    subscriber.onSuccess(response);
+                } catch (Throwable e) {
+                    Exceptions.throwIfFatal(e);
+                    RxJavaHooks.onError(e);
+                }
+            }
+        }
+    }
+}
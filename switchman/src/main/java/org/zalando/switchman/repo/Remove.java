@@ -13,9 +13,9 @@ import rx.Single;
  */
 public class Remove extends Command {
 
-    Remove(final ItemId itemId, final long timestamp, final LocalStorage<ItemId> localStorage,
-                  final Api api, final ApiErrorConverter apiErrorConverter) {
-        super(localStorage, api, apiErrorConverter, itemId, timestamp);
+    Remove(final ItemId itemId, final ItemId key, final long timestamp, final LocalStorage<ItemId> localStorage,
+                  final Api api, final ApiErrorConverter apiErrorConverter, final Retrier retrier) {
+        super(localStorage, api, apiErrorConverter, retrier, itemId, key, timestamp);
     }
 
     @Override
@@ -27,7 +27,7 @@ public class Remove extends Command {
 
     @Override
     Single<Response> execute() {
-        return api.removeItem(itemId)
+        return retrier.call(this, () -> api.removeItem(itemId))
                 .doOnError(err -> localStorage.removeItemIdFromRemoving(itemId))
                 .map(response -> {
                     if (response.isSuccessful() || isAlreadyRemoved(response)) {
@@ -43,6 +43,16 @@ public class Remove extends Command {
                         apiErrorConverter.convertApiError(new ExceptionApiError(throwable))));
     }
 
+    @Override
+    boolean getDesiredMembership() {
+        return false;
+    }
+
+    @Override
+    void settle() {
+        localStorage.removeItemIdFromRemovalAndAdded(itemId);
+    }
+
     private boolean isAlreadyRemoved(ApiResponse response) {
         return response.getCode() == HttpStatus.NOT_FOUND.value();
     }
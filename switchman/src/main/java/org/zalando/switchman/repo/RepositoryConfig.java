@@ -0,0 +1,322 @@
+package org.zalando.switchman.repo;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Execution settings of {@link ItemRepositoryImpl}. Defaults match the behaviour of
+ * {@link ItemRepositoryImpl#ItemRepositoryImpl(org.zalando.switchman.api.Api, ApiErrorConverter)},
+ * so only the settings that differ have to be provided:
+ * <pre>
+ * RepositoryConfig.builder()
+ *         .commandScheduler(Schedulers.from(boundedExecutor))
+ *         .commandQueueSize(16)
+ *         .build();
+ * </pre>
+ */
+public final class RepositoryConfig {
+
+    /**
+     * Source of the timestamps that order commands, it has to be monotonic.
+     */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private static final long DEFAULT_GROUP_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DEFAULT_ITEM_LIST_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Scheduler commandScheduler;
+    private final Scheduler completionScheduler;
+    private final Scheduler timerScheduler;
+    private final Clock clock;
+    private final int commandQueueSize;
+    private final int commandLaneCount;
+    private final long groupIdleTimeoutMillis;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+    private final RetryPolicy retryPolicy;
+    private final CommandJournal journal;
+    private final SnapshotFile snapshotFile;
+    private final long itemListTtlMillis;
+    private final long counterFrameIntervalMillis;
+    private final RepositoryMetrics metrics;
+
+    private RepositoryConfig(final Builder builder) {
+        this.commandScheduler = builder.commandScheduler != null ? builder.commandScheduler : Schedulers.io();
+        this.completionScheduler = builder.completionScheduler;
+        this.timerScheduler = builder.timerScheduler != null ? builder.timerScheduler : Schedulers.computation();
+        this.clock = builder.clock != null ? builder.clock : System::nanoTime;
+        this.commandQueueSize = builder.commandQueueSize;
+        this.commandLaneCount = builder.commandLaneCount;
+        this.groupIdleTimeoutMillis = builder.groupIdleTimeoutMillis;
+        this.batchWindowMillis = builder.batchWindowMillis;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.retryPolicy = builder.retryPolicy;
+        this.journal = builder.journal != null ? builder.journal : CommandJournal.NONE;
+        this.snapshotFile = builder.snapshotFile;
+        this.itemListTtlMillis = builder.itemListTtlMillis;
+        this.counterFrameIntervalMillis = builder.counterFrameIntervalMillis;
+        this.metrics = builder.metrics;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    Scheduler getCommandScheduler() {
+        return commandScheduler;
+    }
+
+    /**
+     * @return scheduler to deliver results of the commands on, null if they are delivered on the
+     * thread that completed the {@link org.zalando.switchman.api.Api} call.
+     */
+    Scheduler getCompletionScheduler() {
+        return completionScheduler;
+    }
+
+    Scheduler getTimerScheduler() {
+        return timerScheduler;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return size of the queue of every item or 0 for default size of RxJava.
+     */
+    int getCommandQueueSize() {
+        return commandQueueSize;
+    }
+
+    /**
+     * @return amount of lanes commands are spread over or 0 if every item has a queue of its own.
+     */
+    int getCommandLaneCount() {
+        return commandLaneCount;
+    }
+
+    long getGroupIdleTimeoutMillis() {
+        return groupIdleTimeoutMillis;
+    }
+
+    long getBatchWindowMillis() {
+        return batchWindowMillis;
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    CommandJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return file to keep the list of items between processes, null if it isn't kept.
+     */
+    SnapshotFile getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    long getItemListTtlMillis() {
+        return itemListTtlMillis;
+    }
+
+    /**
+     * @return minimal interval between emissions of the counter, 0 if every change is emitted.
+     */
+    long getCounterFrameIntervalMillis() {
+        return counterFrameIntervalMillis;
+    }
+
+    RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static final class Builder {
+        private Scheduler commandScheduler;
+        private Scheduler completionScheduler;
+        private Scheduler timerScheduler;
+        private Clock clock;
+        private int commandQueueSize;
+        private int commandLaneCount;
+        private long groupIdleTimeoutMillis = DEFAULT_GROUP_IDLE_TIMEOUT_MILLIS;
+        private long batchWindowMillis;
+        private int maxBatchSize = 1;
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+        private CommandJournal journal;
+        private SnapshotFile snapshotFile;
+        private long itemListTtlMillis = DEFAULT_ITEM_LIST_TTL_MILLIS;
+        private long counterFrameIntervalMillis;
+        private RepositoryMetrics metrics = RepositoryMetrics.NONE;
+
+        private Builder() { }
+
+        /**
+         * Scheduler that drains launched commands into the queues of items, takes them from there and
+         * calls the {@link org.zalando.switchman.api.Api}, {@link Schedulers#io()} by default.
+         */
+        public Builder commandScheduler(final Scheduler commandScheduler) {
+            this.commandScheduler = commandScheduler;
+            return this;
+        }
+
+        /**
+         * Scheduler that delivers results to the callers of
+         * {@link ItemRepository#addItem(org.zalando.switchman.ItemId)} and
+         * {@link ItemRepository#removeItem(org.zalando.switchman.ItemId)}. By default they are delivered
+         * right on the thread that completed the call.
+         */
+        public Builder completionScheduler(final Scheduler completionScheduler) {
+            this.completionScheduler = completionScheduler;
+            return this;
+        }
+
+        /**
+         * Scheduler for delayed work, such as eviction of idle queues and batch windows,
+         * {@link Schedulers#computation()} by default.
+         */
+        public Builder timerScheduler(final Scheduler timerScheduler) {
+            this.timerScheduler = timerScheduler;
+            return this;
+        }
+
+        public Builder clock(final Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder commandQueueSize(final int commandQueueSize) {
+            if (commandQueueSize <= 0) {
+                throw new IllegalArgumentException("commandQueueSize > 0 required but it was " + commandQueueSize);
+            }
+            this.commandQueueSize = commandQueueSize;
+            return this;
+        }
+
+        /**
+         * Same as {@link #commandLanes(int)} with a lane per available processor.
+         */
+        public Builder commandLanes() {
+            return commandLanes(Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * Spreads items over the given amount of lanes instead of giving every item a queue of its own.
+         * Every lane takes a single worker of the command scheduler while it has work and releases it
+         * once it is idle, so the amount of threads stays bounded however many items have pending
+         * commands, and collections of a {@link CollectionRepository} share the lanes. Commands of an
+         * item are still executed one at a time and collapsed to the latest one. The back end calls are
+         * subscribed on the lane, so {@link org.zalando.switchman.api.Api} is expected not to block the
+         * subscribing thread.
+         * {@link #commandQueueSize(int)} and {@link #groupIdleTimeout(long, TimeUnit)} don't apply.
+         */
+        public Builder commandLanes(final int commandLaneCount) {
+            if (commandLaneCount <= 0) {
+                throw new IllegalArgumentException("commandLaneCount > 0 required but it was " + commandLaneCount);
+            }
+            this.commandLaneCount = commandLaneCount;
+            return this;
+        }
+
+        /**
+         * How long a queue of commands for a single item is kept after its last command is finished,
+         * it is created again on the next command.
+         */
+        public Builder groupIdleTimeout(final long groupIdleTimeout, final TimeUnit unit) {
+            if (groupIdleTimeout < 0) {
+                throw new IllegalArgumentException("groupIdleTimeout >= 0 required but it was " + groupIdleTimeout);
+            }
+            this.groupIdleTimeoutMillis = unit.toMillis(groupIdleTimeout);
+            return this;
+        }
+
+        /**
+         * Takes effect only with {@link org.zalando.switchman.api.BatchApi}: calls for different items
+         * are collected for the window or until there are {@code maxBatchSize} of them, whatever
+         * comes first, and sent together.
+         */
+        public Builder batching(final long batchWindow, final TimeUnit unit, final int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize > 0 required but it was " + maxBatchSize);
+            }
+            if (batchWindow < 0) {
+                throw new IllegalArgumentException("batchWindow >= 0 required but it was " + batchWindow);
+            }
+            this.batchWindowMillis = unit.toMillis(batchWindow);
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * How failed calls are retried before the command is reported as failed,
+         * {@link RetryPolicy#none()} by default.
+         */
+        public Builder retryPolicy(final RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Journal that keeps launched commands until they are finished. Commands still pending in
+         * it are launched again when the repository is created, none by default.
+         */
+        public Builder journal(final CommandJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * File the list of items is saved to after every load. The repository starts with the list
+         * read from it, which is replaced once the list is loaded again.
+         */
+        public Builder snapshotFile(final SnapshotFile snapshotFile) {
+            this.snapshotFile = snapshotFile;
+            return this;
+        }
+
+        /**
+         * How long the cached list of items is considered fresh, see {@link FetchPolicy#CACHE_THEN_NETWORK}.
+         */
+        public Builder itemListTtl(final long itemListTtl, final TimeUnit unit) {
+            if (itemListTtl < 0) {
+                throw new IllegalArgumentException("itemListTtl >= 0 required but it was " + itemListTtl);
+            }
+            this.itemListTtlMillis = unit.toMillis(itemListTtl);
+            return this;
+        }
+
+        /**
+         * Changes of the counter that come within the interval are emitted as one, with the latest
+         * value, so a burst of commands doesn't redraw the subscribers on every one of them.
+         */
+        public Builder counterFrameInterval(final long counterFrameInterval, final TimeUnit unit) {
+            if (counterFrameInterval < 0) {
+                throw new IllegalArgumentException("counterFrameInterval >= 0 required but it was " + counterFrameInterval);
+            }
+            this.counterFrameIntervalMillis = unit.toMillis(counterFrameInterval);
+            return this;
+        }
+
+        /**
+         * Listener of the commands, {@link RepositoryMetrics#NONE} by default.
+         */
+        public Builder metrics(final RepositoryMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public RepositoryConfig build() {
+            return new RepositoryConfig(this);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+/**
+ * Listener of what happens to the commands of {@link ItemRepositoryImpl}, see
+ * {@link RepositoryConfig.Builder#metrics(RepositoryMetrics)}. Methods are called on the threads that
+ * process the commands, so they have to be thread safe and must not block.
+ * {@link InMemoryRepositoryMetrics} is a ready to use implementation.
+ */
+public interface RepositoryMetrics {
+
+    /**
+     * Does nothing, durations are not even measured when it is used.
+     */
+    RepositoryMetrics NONE = new RepositoryMetrics() {
+        @Override
+        public void onCommandSubmitted(final ItemId id) {
+        }
+
+        @Override
+        public void onCommandSkipped(final ItemId id) {
+        }
+
+        @Override
+        public void onCommandExecuted(final ItemId id, final long queueWaitNanos) {
+        }
+
+        @Override
+        public void onCommandSucceeded(final ItemId id, final long apiLatencyNanos) {
+        }
+
+        @Override
+        public void onCommandFailed(final ItemId id, final long apiLatencyNanos) {
+        }
+
+        @Override
+        public void onCommandSuperseded(final ItemId id) {
+        }
+
+        @Override
+        public void onApiCall(final int itemCount) {
+        }
+    };
+
+    /**
+     * Item was added or removed by a user.
+     */
+    void onCommandSubmitted(ItemId id);
+
+    /**
+     * Command reached the back end side of its queue but the back end was known to match it already.
+     */
+    void onCommandSkipped(ItemId id);
+
+    /**
+     * Command is going to call the {@link org.zalando.switchman.api.Api}.
+     *
+     * @param queueWaitNanos time since the command was submitted.
+     */
+    void onCommandExecuted(ItemId id, long queueWaitNanos);
+
+    /**
+     * @param apiLatencyNanos time the command spent calling the {@link org.zalando.switchman.api.Api},
+     *                        including retries.
+     */
+    void onCommandSucceeded(ItemId id, long apiLatencyNanos);
+
+    /**
+     * @param apiLatencyNanos time the command spent calling the {@link org.zalando.switchman.api.Api},
+     *                        including retries.
+     */
+    void onCommandFailed(ItemId id, long apiLatencyNanos);
+
+    /**
+     * Command was finished by a newer one for the same item, without calling the
+     * {@link org.zalando.switchman.api.Api} on its own.
+     */
+    void onCommandSuperseded(ItemId id);
+
+    /**
+     * {@link org.zalando.switchman.api.Api} was called to add or remove items: once per attempt of a
+     * command, or once per batch with
+     * {@link RepositoryConfig.Builder#batching(long, java.util.concurrent.TimeUnit, int)}.
+     *
+     * @param itemCount amount of items the call is for.
+     */
+    void onApiCall(int itemCount);
+}
@@ -0,0 +1,75 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.api.ApiResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import rx.Notification;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Single;
+import rx.functions.Func0;
+
+/**
+ * Repeats {@link org.zalando.switchman.api.Api} calls of a command according to {@link RetryPolicy}.
+ * Waiting for the next attempt stops as soon as a newer command for the same item is launched, that
+ * one decides whether the back end has to be called at all.
+ */
+class Retrier {
+
+    private final RetryPolicy retryPolicy;
+    private final Scheduler timerScheduler;
+    private final PendingCommandRegistry pendingCommands;
+
+    Retrier(final RetryPolicy retryPolicy, final Scheduler timerScheduler,
+            final PendingCommandRegistry pendingCommands) {
+        this.retryPolicy = retryPolicy;
+        this.timerScheduler = timerScheduler;
+        this.pendingCommands = pendingCommands;
+    }
+
+    Single<ApiResponse> call(final Command command, final Func0<Single<ApiResponse>> apiCall) {
+        return attempt(command, apiCall, 1);
+    }
+
+    private Single<ApiResponse> attempt(final Command command, final Func0<Single<ApiResponse>> apiCall,
+                                        final int attempt) {
+        return apiCall.call()
+                .map(Notification::createOnNext)
+                .onErrorReturn(Notification::<ApiResponse>createOnError)
+                .flatMap(result -> {
+                    if (attempt >= retryPolicy.getMaxAttempts() || !isRetryable(result)) {
+                        return dematerialize(result);
+                    }
+                    final long delayMillis = retryPolicy.getDelayMillis(attempt, result.getValue());
+                    return waitUnlessSuperseded(command, delayMillis)
+                            .flatMap(superseded -> superseded
+                                    ? dematerialize(result)
+                                    : attempt(command, apiCall, attempt + 1));
+                });
+    }
+
+    private boolean isRetryable(final Notification<ApiResponse> result) {
+        return result.isOnError() || retryPolicy.isRetryable(result.getValue());
+    }
+
+    /**
+     * @return Single that emits true if a newer command came before the delay passed.
+     */
+    private Single<Boolean> waitUnlessSuperseded(final Command command, final long delayMillis) {
+        final Observable<Boolean> superseded = Observable.create(subscriber ->
+                subscriber.add(pendingCommands.onSuperseded(command, () -> {
+                    subscriber.onNext(true);
+                    subscriber.onCompleted();
+                })));
+        return Observable.timer(delayMillis, TimeUnit.MILLISECONDS, timerScheduler)
+                .map(ignored -> false)
+                .mergeWith(superseded)
+                .first()
+                .toSingle();
+    }
+
+    private static Single<ApiResponse> dematerialize(final Notification<ApiResponse> result) {
+        return result.isOnError() ? Single.error(result.getThrowable()) : Single.just(result.getValue());
+    }
+}
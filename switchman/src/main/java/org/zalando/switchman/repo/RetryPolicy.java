@@ -0,0 +1,73 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.HttpStatus;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines how failed calls of {@link org.zalando.switchman.api.Api#addItem(org.zalando.switchman.ItemId)}
+ * and {@link org.zalando.switchman.api.Api#removeItem(org.zalando.switchman.ItemId)} are retried before
+ * the command is rolled back. Exceptions, {@link HttpStatus#TOO_MANY_REQUESTS} and 5xx responses are
+ * retried, any other response is final.
+ */
+public final class RetryPolicy {
+
+    private static final RetryPolicy NONE = new RetryPolicy(0, 0, 1);
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+    private final Random random = new Random();
+
+    private RetryPolicy(final long baseDelayMillis, final long maxDelayMillis, final int maxAttempts) {
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Exponential backoff with full jitter: delay before attempt {@code n + 1} is random between 0 and
+     * {@code min(maxDelay, baseDelay * 2^(n - 1))}. A delay provided by the back end with
+     * {@link ApiResponse#getRetryAfterMillis()} is used as is instead.
+     *
+     * @param maxAttempts amount of calls including the first one.
+     */
+    public static RetryPolicy exponentialBackoff(final long baseDelay, final long maxDelay, final TimeUnit unit,
+                                                 final int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts > 0 required but it was " + maxAttempts);
+        }
+        return new RetryPolicy(unit.toMillis(baseDelay), unit.toMillis(maxDelay), maxAttempts);
+    }
+
+    int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    boolean isRetryable(final ApiResponse response) {
+        return !response.isSuccessful()
+                && (response.getCode() == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || response.getCode() >= 500 && response.getCode() < 600);
+    }
+
+    /**
+     * @param attempt  number of the failed attempt, starting from 1.
+     * @param response failed response or null if the call threw an exception.
+     */
+    long getDelayMillis(final int attempt, final ApiResponse response) {
+        if (response != null && response.hasRetryAfter()) {
+            return response.getRetryAfterMillis();
+        }
+        final int shift = attempt - 1;
+        final long ceiling = shift < Long.numberOfLeadingZeros(baseDelayMillis) - 1
+                ? Math.min(maxDelayMillis, baseDelayMillis << shift)
+                : maxDelayMillis;
+        return (long) (random.nextDouble() * ceiling);
+    }
+}
@@ -0,0 +1,90 @@
+package org.zalando.switchman.repo;
+
+import org.zalando.switchman.ItemId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * File with the list of items the back end had last time, so a new {@link ItemRepositoryImpl} can
+ * show it before the list is loaded again, see {@link RepositoryConfig.Builder#snapshotFile(SnapshotFile)}.
+ * <p>
+ * Format is a header of magic number, version and amount of items followed by ids encoded by
+ * {@link ItemIdCodec}, every one prefixed by its length as unsigned short. The file is replaced
+ * as a whole, so it is never seen half written.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x53575353;
+    private static final short VERSION = 1;
+    private static final int MAX_ID_SIZE = 0xFFFF;
+
+    private final File file;
+    private final ItemIdCodec codec;
+
+    public SnapshotFile(final File file, final ItemIdCodec codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    /**
+     * @return saved items, empty if nothing was saved yet.
+     * @throws IOException if the file can't be read or it was written by an unknown version.
+     */
+    public synchronized List<ItemId> read() throws IOException {
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException(file + " is not a snapshot file");
+            }
+            final short version = input.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of snapshot file " + file);
+            }
+            final int count = input.readInt();
+            final List<ItemId> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final byte[] encodedId = new byte[input.readUnsignedShort()];
+                input.readFully(encodedId);
+                ids.add(codec.decode(encodedId));
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Saves items the back end is known to have in the snapshot, pending changes are not saved.
+     */
+    public synchronized void write(final LocalStorage.Snapshot<? extends ItemId> snapshot) throws IOException {
+        final ItemIdSet<? extends ItemId> ids = snapshot.getAddedItems();
+        final File writtenFile = new File(file.getPath() + ".writing");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(writtenFile)))) {
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeInt(ids.size());
+            for (ItemId id : ids) {
+                final byte[] encodedId = codec.encode(id);
+                if (encodedId.length > MAX_ID_SIZE) {
+                    throw new IOException("Encoded id can't be longer than " + MAX_ID_SIZE
+                            + " bytes but it was " + encodedId.length);
+                }
+                output.writeShort(encodedId.length);
+                output.write(encodedId);
+            }
+        }
+        if (!writtenFile.renameTo(file)) {
+            throw new IOException("Failed to replace " + file + " with " + writtenFile);
+        }
+    }
+}
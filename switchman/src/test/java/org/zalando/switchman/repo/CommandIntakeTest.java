@@ -0,0 +1,151 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import rx.plugins.RxJavaHooks;
+
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
+
+public class CommandIntakeTest {
+
+    @Test
+    public void commands_AreConsumedOnDrainerInOfferedOrder() {
+        TestScheduler drainerScheduler = new TestScheduler();
+        List<Command> consumed = new ArrayList<>();
+        CommandIntake<Command> commandIntake = new CommandIntake<>(drainerScheduler, consumed::add);
+        Command command1 = mock(Command.class);
+        Command command2 = mock(Command.class);
+        Command command3 = mock(Command.class);
+
+        commandIntake.offer(command1);
+        commandIntake.offer(command2);
+        commandIntake.offer(command3);
+        assertTrue(consumed.isEmpty());
+
+        drainerScheduler.triggerActions();
+        assertEquals(Arrays.asList(command1, command2, command3), consumed);
+    }
+
+    @Test
+    public void commands_AreAllConsumed_When_DrainYieldsBetweenBatches() {
+        TestScheduler drainerScheduler = new TestScheduler();
+        List<Command> consumed = new ArrayList<>();
+        CommandIntake<Command> commandIntake = new CommandIntake<>(drainerScheduler, consumed::add);
+        List<Command> offered = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Command command = mock(Command.class);
+            offered.add(command);
+            commandIntake.offer(command);
+        }
+
+        drainerScheduler.triggerActions();
+        assertEquals(offered, consumed);
+    }
+
+    @Test
+    public void drainer_IsReleased_When_AllCommandsAreConsumed() {
+        TestScheduler drainerScheduler = new TestScheduler();
+        WorkerCountingScheduler countingScheduler = new WorkerCountingScheduler(drainerScheduler);
+        List<Command> consumed = new ArrayList<>();
+        CommandIntake<Command> commandIntake = new CommandIntake<>(countingScheduler, consumed::add);
+
+        commandIntake.offer(mock(Command.class));
+        assertEquals(1, countingScheduler.getActiveWorkerCount());
+        drainerScheduler.triggerActions();
+        assertEquals(0, countingScheduler.getActiveWorkerCount());
+
+        commandIntake.offer(mock(Command.class));
+        drainerScheduler.triggerActions();
+        assertEquals(2, consumed.size());
+        assertEquals(0, countingScheduler.getActiveWorkerCount());
+    }
+
+    @Test
+    public void drainer_IsReleasedAndNextCommandsAreConsumed_When_ConsumerThrows() {
+        List<Throwable> errors = new ArrayList<>();
+        RxJavaHooks.setOnError(errors::add);
+        try {
+            TestScheduler drainerScheduler = new TestScheduler();
+            WorkerCountingScheduler countingScheduler = new WorkerCountingScheduler(drainerScheduler);
+            RuntimeException consumerError = new IllegalStateException();
+            Command failingCommand = mock(Command.class);
+            List<Command> consumed = new ArrayList<>();
+            CommandIntake<Command> commandIntake = new CommandIntake<>(countingScheduler, command -> {
+                if (command == failingCommand) {
+                    throw consumerError;
+                }
+                consumed.add(command);
+            });
+            Command command1 = mock(Command.class);
+            Command command2 = mock(Command.class);
+
+            commandIntake.offer(failingCommand);
+            commandIntake.offer(command1);
+            drainerScheduler.triggerActions();
+            assertEquals(0, countingScheduler.getActiveWorkerCount());
+
+            commandIntake.offer(command2);
+            drainerScheduler.triggerActions();
+            assertEquals(Arrays.asList(command1, command2), consumed);
+            assertEquals(Collections.singletonList(consumerError), errors);
+            assertEquals(0, countingScheduler.getActiveWorkerCount());
+        } finally {
+            RxJavaHooks.setOnError(null);
+        }
+    }
+
+    @Test
+    public void commandsOfEveryProducer_AreConsumedInOrder_When_OfferedConcurrently() throws Exception {
+        int producerCount = 8;
+        int commandsPerProducer = 10000;
+        Map<Command, Integer> producers = Collections.synchronizedMap(new HashMap<>());
+        Map<Command, Integer> sequences = Collections.synchronizedMap(new HashMap<>());
+        List<Command> consumed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allConsumed = new CountDownLatch(producerCount * commandsPerProducer);
+        ExecutorService drainerExecutor = Executors.newSingleThreadExecutor();
+        CommandIntake<Command> commandIntake = new CommandIntake<>(Schedulers.from(drainerExecutor), command -> {
+            consumed.add(command);
+            allConsumed.countDown();
+        });
+
+        ExecutorService producerExecutor = Executors.newFixedThreadPool(producerCount);
+        for (int producer = 0; producer < producerCount; producer++) {
+            List<Command> commands = new ArrayList<>();
+            for (int sequence = 0; sequence < commandsPerProducer; sequence++) {
+                Command command = mock(Command.class);
+                producers.put(command, producer);
+                sequences.put(command, sequence);
+                commands.add(command);
+            }
+            producerExecutor.execute(() -> commands.forEach(commandIntake::offer));
+        }
+        producerExecutor.shutdown();
+
+        assertTrue(allConsumed.await(30, TimeUnit.SECONDS));
+        drainerExecutor.shutdown();
+        int[] lastSequences = new int[producerCount];
+        Arrays.fill(lastSequences, -1);
+        for (Command command : consumed) {
+            int producer = producers.get(command);
+            assertEquals(lastSequences[producer] + 1, (int) sequences.get(command));
+            lastSequences[producer]++;
+        }
+    }
+}
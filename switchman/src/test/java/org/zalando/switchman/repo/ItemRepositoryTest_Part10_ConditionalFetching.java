@@ -0,0 +1,93 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ConditionalApi;
+import org.zalando.switchman.api.VersionedItemList;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+public class ItemRepositoryTest_Part10_ConditionalFetching {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private ConditionalApi api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter);
+    }
+
+    @Test
+    public void getItemList_ReturnsPreviousList_When_NotModified() {
+        ItemId itemId = mock(ItemId.class);
+        Set<Item<ItemId>> items = Collections.singleton(() -> itemId);
+        when(api.getItemList((String) null)).thenReturn(Single.just(VersionedItemList.create(items, "v1")));
+        when(api.getItemList("v1")).thenReturn(Single.just(VersionedItemList.createNotModified()));
+
+        itemRepository.getItemList().test();
+        AssertableSubscriber<Integer> counterSubscriber = itemRepository.getCounter().test();
+        AssertableSubscriber<Set<? extends Item<ItemId>>> subscriber = itemRepository.getItemList().test();
+
+        verify(api).getItemList("v1");
+        subscriber.assertValue(items).assertCompleted();
+        counterSubscriber.assertValue(1);
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void getItemList_RefreshesStorage_When_Modified() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        Set<Item<ItemId>> items1 = Collections.singleton(() -> itemId1);
+        Set<Item<ItemId>> items2 = Collections.singleton(() -> itemId2);
+        when(api.getItemList((String) null)).thenReturn(Single.just(VersionedItemList.create(items1, "v1")));
+        when(api.getItemList("v1")).thenReturn(Single.just(VersionedItemList.create(items2, "v2")));
+
+        itemRepository.getItemList().test();
+        itemRepository.getItemList().test().assertValue(items2).assertCompleted();
+
+        assertFalse(itemRepository.hasItem(itemId1));
+        assertTrue(itemRepository.hasItem(itemId2));
+    }
+
+    @Test
+    public void getItemList_RequestsWithoutTag_When_PreviousListWasNotTagged() {
+        Set<Item<ItemId>> items = Collections.emptySet();
+        when(api.getItemList((String) null)).thenReturn(Single.just(VersionedItemList.create(items, null)));
+
+        itemRepository.getItemList().test();
+        itemRepository.getItemList().test().assertValue(items).assertCompleted();
+
+        verify(api, times(2)).getItemList((String) null);
+    }
+}
@@ -0,0 +1,115 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.DeltaApi;
+import org.zalando.switchman.api.ItemListDelta;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+import rx.subjects.PublishSubject;
+
+public class ItemRepositoryTest_Part11_SingleFlightFetching {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private DeltaApi api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter);
+    }
+
+    @Test
+    public void getItemList_CallsApiOnce_When_SubscribedConcurrently() {
+        ItemId itemId = mock(ItemId.class);
+        Set<Item<ItemId>> items = Collections.singleton(() -> itemId);
+        PublishSubject<Set<? extends Item<ItemId>>> response = PublishSubject.create();
+        when(api.getItemList()).thenReturn(response.toSingle());
+
+        AssertableSubscriber<Integer> counterSubscriber = itemRepository.getCounter().test();
+        AssertableSubscriber<Set<? extends Item<ItemId>>> subscriber1 = itemRepository.getItemList().test();
+        AssertableSubscriber<Set<? extends Item<ItemId>>> subscriber2 = itemRepository.getItemList().test();
+        AssertableSubscriber<Set<? extends Item<ItemId>>> subscriber3 = itemRepository.getItemList().test();
+        response.onNext(items);
+        response.onCompleted();
+
+        verify(api, times(1)).getItemList();
+        subscriber1.assertValue(items).assertCompleted();
+        subscriber2.assertValue(items).assertCompleted();
+        subscriber3.assertValue(items).assertCompleted();
+        counterSubscriber.assertValues(0, 1);
+    }
+
+    @Test
+    public void getItemList_CallsApiAgain_When_PreviousLoadIsFinished() {
+        when(api.getItemList()).thenReturn(Single.just(Collections.emptySet()));
+
+        itemRepository.getItemList().test();
+        itemRepository.getItemList().test();
+
+        verify(api, times(2)).getItemList();
+    }
+
+    @Test
+    public void getItemList_CallsApiAgain_When_PreviousLoadFailed() {
+        RuntimeException error = new RuntimeException();
+        when(api.getItemList())
+                .thenReturn(Single.error(error))
+                .thenReturn(Single.just(Collections.emptySet()));
+
+        itemRepository.getItemList().test().assertError(error);
+        itemRepository.getItemList().test().assertNoErrors();
+
+        verify(api, times(2)).getItemList();
+    }
+
+    @Test
+    public void getItemList_DoesNotOverwriteStorage_When_LaterLoadFinishedFirst() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        Set<Item<ItemId>> items = Collections.singleton(() -> itemId1);
+        PublishSubject<Set<? extends Item<ItemId>>> response = PublishSubject.create();
+        when(api.getItemList()).thenReturn(response.toSingle());
+        when(api.getChangesSince(null)).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId2), Collections.emptyList(), "1")));
+
+        AssertableSubscriber<Set<? extends Item<ItemId>>> subscriber = itemRepository.getItemList().test();
+        itemRepository.syncItemList().test();
+        response.onNext(items);
+        response.onCompleted();
+
+        subscriber.assertValue(items).assertCompleted();
+        assertFalse(itemRepository.hasItem(itemId1));
+        assertTrue(itemRepository.hasItem(itemId2));
+    }
+}
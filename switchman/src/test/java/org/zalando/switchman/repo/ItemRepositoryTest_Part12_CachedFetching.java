@@ -0,0 +1,119 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+
+import rx.Single;
+
+public class ItemRepositoryTest_Part12_CachedFetching {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private long nanoTime;
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .clock(() -> nanoTime)
+                .itemListTtl(1, TimeUnit.MINUTES)
+                .build());
+    }
+
+    @Test
+    public void getItemList_Fails_When_CacheOnlyAndListWasNotLoaded() {
+        itemRepository.getItemList(FetchPolicy.CACHE_ONLY).test().assertError(IllegalStateException.class);
+
+        assertEquals(1, itemRepository.getCacheMissCount());
+    }
+
+    @Test
+    public void getItemList_DoesNotCallApi_When_CachedListIsFresh() {
+        Set<Item<ItemId>> items = itemSet(mock(ItemId.class));
+        when(api.getItemList()).thenReturn(Single.just(items));
+
+        itemRepository.getItemList(FetchPolicy.CACHE_THEN_NETWORK).test().assertValue(items).assertCompleted();
+        nanoTime += TimeUnit.SECONDS.toNanos(59);
+        itemRepository.getItemList(FetchPolicy.CACHE_THEN_NETWORK).test().assertValue(items).assertCompleted();
+
+        verify(api, times(1)).getItemList();
+        assertEquals(0.5, itemRepository.getCacheHitRatio(), 0);
+    }
+
+    @Test
+    public void getItemList_ReturnsCachedListAndLoadsItAgain_When_CachedListIsStale() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        Set<Item<ItemId>> items1 = itemSet(itemId1);
+        Set<Item<ItemId>> items2 = itemSet(itemId2);
+        when(api.getItemList())
+                .thenReturn(Single.just(items1))
+                .thenReturn(Single.just(items2));
+
+        itemRepository.getItemList().test();
+        nanoTime += TimeUnit.MINUTES.toNanos(1);
+        itemRepository.getItemList(FetchPolicy.CACHE_THEN_NETWORK).test().assertValue(items1).assertCompleted();
+
+        verify(api, times(2)).getItemList();
+        itemRepository.getItemList(FetchPolicy.CACHE_ONLY).test().assertValue(items2).assertCompleted();
+        assertEquals(1.0, itemRepository.getCacheHitRatio(), 0);
+    }
+
+    @Test
+    public void getItemList_MergesCachedListWithPendingChanges_When_CacheOnly() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        ItemId itemId3 = mock(ItemId.class);
+        when(api.getItemList()).thenReturn(Single.just(itemSet(itemId1, itemId2)));
+        when(api.removeItem(itemId1)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+        when(api.addItem(itemId3)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+
+        itemRepository.getItemList().test();
+        itemRepository.removeItem(itemId1).test();
+        itemRepository.addItem(itemId3).test();
+        Set<? extends Item<ItemId>> items = itemRepository.getItemList(FetchPolicy.CACHE_ONLY).toBlocking().value();
+
+        Set<ItemId> ids = new HashSet<>();
+        for (Item<ItemId> item : items) {
+            ids.add(item.getId());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(itemId2, itemId3)), ids);
+    }
+
+    private static Set<Item<ItemId>> itemSet(final ItemId... ids) {
+        Set<Item<ItemId>> items = new HashSet<>();
+        for (ItemId id : ids) {
+            items.add(() -> id);
+        }
+        return items;
+    }
+}
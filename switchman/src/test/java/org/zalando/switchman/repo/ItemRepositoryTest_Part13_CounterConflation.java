@@ -0,0 +1,82 @@
+package org.zalando.switchman.repo;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+import rx.schedulers.TestScheduler;
+
+public class ItemRepositoryTest_Part13_CounterConflation {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private final TestScheduler timerScheduler = new TestScheduler();
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+    }
+
+    @Test
+    public void counter_IsNotEmitted_When_ValueDidNotChange() {
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter);
+        ItemId itemId = mock(ItemId.class);
+        when(api.getItemList()).thenReturn(Single.just(Collections.singleton(() -> itemId)));
+
+        AssertableSubscriber<Integer> counterSubscriber = itemRepository.getCounter().test();
+        itemRepository.getItemList().test();
+        itemRepository.getItemList().test();
+
+        counterSubscriber.assertValues(0, 1);
+    }
+
+    @Test
+    public void counter_EmitsLatestValueOncePerFrame_When_ChangedManyTimesWithinFrame() {
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .timerScheduler(timerScheduler)
+                .counterFrameInterval(16, TimeUnit.MILLISECONDS)
+                .build());
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        ItemId itemId3 = mock(ItemId.class);
+        when(api.addItem(itemId1)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+        when(api.addItem(itemId2)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+        when(api.addItem(itemId3)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+
+        AssertableSubscriber<Integer> counterSubscriber = itemRepository.getCounter().test();
+        itemRepository.addItem(itemId1).test();
+        itemRepository.addItem(itemId2).test();
+        itemRepository.addItem(itemId3).test();
+        counterSubscriber.assertValues(0);
+
+        timerScheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+        counterSubscriber.assertValues(0, 3);
+
+        timerScheduler.advanceTimeBy(16, TimeUnit.MILLISECONDS);
+        counterSubscriber.assertValues(0, 3);
+    }
+}
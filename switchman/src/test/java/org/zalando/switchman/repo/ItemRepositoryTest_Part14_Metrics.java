@@ -0,0 +1,132 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+
+import static org.mockito.Matchers.any;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.BatchApi;
+
+import rx.Single;
+
+public class ItemRepositoryTest_Part14_Metrics {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private InMemoryRepositoryMetrics metrics;
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        metrics = new InMemoryRepositoryMetrics();
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .metrics(metrics)
+                .build());
+    }
+
+    @Test
+    public void metrics_CountSavedCalls_When_ARA() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertEquals(3, metrics.getSubmittedCount());
+        assertEquals(1, metrics.getExecutedCount());
+        assertEquals(1, metrics.getSucceededCount());
+        assertEquals(1, metrics.getSkippedCount());
+        assertEquals(1, metrics.getSupersededCount());
+        assertEquals(2.0 / 3, metrics.getCallsSavedRatio(), 1e-9);
+        assertEquals(1, metrics.getQueueWait().getCount());
+        assertEquals(1, metrics.getApiLatency().getCount());
+    }
+
+    @Test
+    public void metrics_CountFailure_When_ApiFails() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.error(new RuntimeException()));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertEquals(1, metrics.getExecutedCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(0, metrics.getSucceededCount());
+        assertEquals(0, metrics.getCallsSavedRatio(), 0);
+    }
+
+    @Test
+    public void metrics_CountEveryAttempt_When_CommandIsRetried() {
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .retryPolicy(RetryPolicy.exponentialBackoff(1, 4, TimeUnit.SECONDS, 3))
+                .metrics(metrics)
+                .build());
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId))
+                .thenReturn(Single.error(new RuntimeException()))
+                .thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(3);
+
+        assertEquals(1, metrics.getExecutedCount());
+        assertEquals(1, metrics.getSucceededCount());
+        assertEquals(2, metrics.getApiCallCount());
+        assertEquals(-1, metrics.getCallsSavedRatio(), 1e-9);
+    }
+
+    @Test
+    public void metrics_CountOneCall_When_CommandsAreBatched() {
+        BatchApi batchApi = mock(BatchApi.class);
+        itemRepository = new ItemRepositoryImpl(batchApi, apiErrorConverter, RepositoryConfig.builder()
+                .batching(100, TimeUnit.MILLISECONDS, 3)
+                .metrics(metrics)
+                .build());
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        ItemId itemId3 = mock(ItemId.class);
+        Map<ItemId, ApiResponse> responses = new HashMap<>();
+        responses.put(itemId1, ApiResponse.createSuccessfulResponse());
+        responses.put(itemId2, ApiResponse.createSuccessfulResponse());
+        responses.put(itemId3, ApiResponse.createSuccessfulResponse());
+        when(batchApi.addItems(any())).thenReturn(Single.just(responses));
+
+        itemRepository.addItem(itemId1).test();
+        itemRepository.addItem(itemId2).test();
+        itemRepository.addItem(itemId3).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertEquals(3, metrics.getExecutedCount());
+        assertEquals(3, metrics.getSucceededCount());
+        assertEquals(1, metrics.getApiCallCount());
+        assertEquals(2.0 / 3, metrics.getCallsSavedRatio(), 1e-9);
+    }
+}
@@ -0,0 +1,101 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+public class ItemRepositoryTest_Part15_Collections {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api wishlistApi;
+
+    @Mock
+    private Api cartApi;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private CollectionRepository collections;
+    private ItemRepositoryImpl wishlist;
+    private ItemRepositoryImpl cart;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        collections = new CollectionRepository();
+        wishlist = collections.createCollection("wishlist", wishlistApi, apiErrorConverter);
+        cart = collections.createCollection("cart", cartApi, apiErrorConverter);
+    }
+
+    @Test
+    public void hasItemAndCounter_AreKeptPerCollection() {
+        ItemId itemId = mock(ItemId.class);
+        when(wishlistApi.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        AssertableSubscriber<Integer> wishlistCounter = wishlist.getCounter().test();
+        AssertableSubscriber<Integer> cartCounter = cart.getCounter().test();
+        wishlist.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertTrue(wishlist.hasItem(itemId));
+        assertFalse(cart.hasItem(itemId));
+        wishlistCounter.assertValues(0, 1);
+        cartCounter.assertValues(0);
+    }
+
+    @Test
+    public void commands_AreCollapsedPerCollection_When_SameItemIsChangedInBoth() {
+        ItemId itemId = mock(ItemId.class);
+        when(wishlistApi.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(cartApi.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        wishlist.addItem(itemId).test();
+        cart.addItem(itemId).test();
+        wishlist.removeItem(itemId).test();
+        wishlist.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(wishlistApi).addItem(itemId);
+        verify(wishlistApi, never()).removeItem(itemId);
+        verify(cartApi).addItem(itemId);
+        assertTrue(wishlist.hasItem(itemId));
+        assertTrue(cart.hasItem(itemId));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createCollection_Throws_When_CollectionWasCreatedAlready() {
+        collections.createCollection("wishlist", wishlistApi, apiErrorConverter);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void collectionRepository_Throws_When_ConfigHasSnapshotFile() {
+        new CollectionRepository(RepositoryConfig.builder()
+                .snapshotFile(new SnapshotFile(new File("snapshot"), new LongItemIdCodec()))
+                .build());
+    }
+}
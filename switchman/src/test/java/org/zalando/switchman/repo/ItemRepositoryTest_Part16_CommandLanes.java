@@ -0,0 +1,198 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import rx.Single;
+import rx.SingleSubscriber;
+
+import rx.observers.AssertableSubscriber;
+
+import rx.plugins.RxJavaHooks;
+
+import rx.schedulers.TestScheduler;
+
+import rx.subjects.PublishSubject;
+
+public class ItemRepositoryTest_Part16_CommandLanes {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+    }
+
+    @Test
+    public void ARA_ResultInApiCallAddAndSkippedResponses() {
+        ItemRepositoryImpl itemRepository = createItemRepository(2);
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        AssertableSubscriber<Response> firstAdd = itemRepository.addItem(itemId).test();
+        AssertableSubscriber<Response> remove = itemRepository.removeItem(itemId).test();
+        AssertableSubscriber<Response> secondAdd = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, times(1)).addItem(itemId);
+        firstAdd.assertValue(Response.createSuccessfulResponse());
+        assertTrue(remove.getOnNextEvents().get(0).isSkipped());
+        assertTrue(secondAdd.getOnNextEvents().get(0).isSkipped());
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void ARAR_ResultInApiCallsAddAndRemoveInOrder() {
+        ItemRepositoryImpl itemRepository = createItemRepository(2);
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        itemRepository.addItem(itemId).test();
+        AssertableSubscriber<Response> lastRemove = itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        InOrder inOrder = inOrder(api);
+        inOrder.verify(api).addItem(itemId);
+        inOrder.verify(api).removeItem(itemId);
+        lastRemove.assertValue(Response.createSuccessfulResponse());
+        assertFalse(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void itemsOfOneLane_AreExecutedConcurrently_When_ApiCallsDoNotComplete() {
+        ItemRepositoryImpl itemRepository = createItemRepository(1);
+        ItemId itemId1 = LongItemId.of(1);
+        ItemId itemId2 = LongItemId.of(2);
+        when(api.addItem(itemId1)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+        when(api.addItem(itemId2)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId1).test();
+        AssertableSubscriber<Response> secondAdd = itemRepository.addItem(itemId2).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api).addItem(itemId1);
+        secondAdd.assertValue(Response.createSuccessfulResponse());
+    }
+
+    @Test
+    public void evictedGroupCount_StaysZero_When_LanesAreUsed() {
+        ItemRepositoryImpl itemRepository = createItemRepository(2);
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertEquals(0, itemRepository.getEvictedGroupCount());
+    }
+
+    @Test
+    public void laneWorkers_AreReleased_When_LanesAreIdle() {
+        TestScheduler commandScheduler = new TestScheduler();
+        WorkerCountingScheduler countingScheduler = new WorkerCountingScheduler(commandScheduler);
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .commandScheduler(countingScheduler)
+                .commandLanes(4)
+                .build());
+        PublishSubject<ApiResponse> apiResponse = PublishSubject.create();
+        when(api.addItem(any(ItemId.class))).thenReturn(apiResponse.toSingle());
+
+        List<AssertableSubscriber<Response>> additions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            additions.add(itemRepository.addItem(LongItemId.of(i)).test());
+        }
+        commandScheduler.triggerActions();
+        assertEquals(0, countingScheduler.getActiveWorkerCount());
+
+        apiResponse.onNext(ApiResponse.createSuccessfulResponse());
+        apiResponse.onCompleted();
+        commandScheduler.triggerActions();
+        assertEquals(0, countingScheduler.getActiveWorkerCount());
+        for (AssertableSubscriber<Response> addition : additions) {
+            addition.assertValue(Response.createSuccessfulResponse());
+        }
+    }
+
+    @Test
+    public void lane_KeepsExecutingCommands_When_CallerThrowsOnResponse() {
+        List<Throwable> errors = new ArrayList<>();
+        RxJavaHooks.setOnError(errors::add);
+        try {
+            ItemRepositoryImpl itemRepository = createItemRepository(1);
+            ItemId itemId1 = LongItemId.of(1);
+            ItemId itemId2 = LongItemId.of(2);
+            RuntimeException callerError = new IllegalStateException();
+            when(api.addItem(any(ItemId.class))).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+            itemRepository.addItem(itemId1).subscribe(new SingleSubscriber<Response>() {
+                @Override
+                public void onSuccess(final Response response) {
+                    throw callerError;
+                }
+
+                @Override
+                public void onError(final Throwable error) {
+                }
+            });
+            RxJavaSchedulerUtils.advanceOneSecond();
+            AssertableSubscriber<Response> secondAdd = itemRepository.addItem(itemId2).test();
+            RxJavaSchedulerUtils.advanceOneSecond();
+
+            secondAdd.assertValue(Response.createSuccessfulResponse());
+            assertTrue(errors.contains(callerError));
+
+            when(api.removeItem(itemId1)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+            AssertableSubscriber<Response> remove = itemRepository.removeItem(itemId1).test();
+            RxJavaSchedulerUtils.advanceOneSecond();
+            remove.assertValue(Response.createSuccessfulResponse());
+        } finally {
+            RxJavaHooks.setOnError(null);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void commandLanes_Throws_When_LaneCountIsNotPositive() {
+        RepositoryConfig.builder().commandLanes(0);
+    }
+
+    private ItemRepositoryImpl createItemRepository(final int laneCount) {
+        return new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .commandLanes(laneCount)
+                .build());
+    }
+}
@@ -1,6 +1,7 @@
 package org.zalando.switchman.repo;
 
 import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -10,11 +11,14 @@ import static org.mockito.Mockito.when;
 
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.util.Collections;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import org.mockito.Mock;
 
+import org.zalando.switchman.Item;
 import org.zalando.switchman.ItemId;
 import org.zalando.switchman.api.Api;
 import org.zalando.switchman.api.ApiResponse;
@@ -175,6 +179,37 @@ public class ItemRepositoryTest_Part4_ApiCallsOptimisation {
         assertTrue(secondRemoveSubscriber.getOnNextEvents().get(0).isSuccessful());
     }
 
+    @Test
+    public void addItem_DoesNotCallApi_When_ItemIsAlreadyInFetchedList() {
+        ItemId itemId = mock(ItemId.class);
+        Item<ItemId> item = () -> itemId;
+        when(api.getItemList()).thenReturn(Single.just(Collections.singleton(item)));
+        itemRepository.getItemList().test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        AssertableSubscriber<Response> subscriber = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, never()).addItem(itemId);
+        assertTrue(subscriber.getOnNextEvents().get(0).isSkipped());
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void removeItem_DoesNotCallApi_When_ItemIsNotInFetchedList() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.getItemList()).thenReturn(Single.just(Collections.emptySet()));
+        itemRepository.getItemList().test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, never()).removeItem(itemId);
+        assertFalse(itemRepository.hasItem(itemId));
+        assertEquals(0, itemRepository.snapshot().getCounterValue());
+    }
+
     /**
      * Helper method for adding a single item.
      *
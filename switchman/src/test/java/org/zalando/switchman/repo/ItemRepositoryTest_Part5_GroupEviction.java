@@ -0,0 +1,90 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+public class ItemRepositoryTest_Part5_GroupEviction {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .groupIdleTimeout(10, TimeUnit.SECONDS)
+                .build());
+    }
+
+    @Test
+    public void group_IsEvicted_When_IdleLongerThanTimeout() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(5);
+        assertEquals(0, itemRepository.getEvictedGroupCount());
+
+        RxJavaSchedulerUtils.advanceInSeconds(10);
+        assertEquals(1, itemRepository.getEvictedGroupCount());
+    }
+
+    @Test
+    public void group_IsNotEvicted_When_CommandIsInFlight() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(60);
+
+        assertEquals(0, itemRepository.getEvictedGroupCount());
+    }
+
+    @Test
+    public void evictedGroup_IsRecreated_When_NewCommandComes() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(15);
+        AssertableSubscriber<Response> subscriber = itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertEquals(1, itemRepository.getEvictedGroupCount());
+        verify(api, times(1)).removeItem(itemId);
+        subscriber.assertResult(Response.createSuccessfulResponse());
+        assertFalse(itemRepository.hasItem(itemId));
+    }
+}
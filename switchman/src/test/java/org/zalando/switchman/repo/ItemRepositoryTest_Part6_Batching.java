@@ -0,0 +1,144 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Matchers.any;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.BatchApi;
+import org.zalando.switchman.api.HttpStatus;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+public class ItemRepositoryTest_Part6_Batching {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private BatchApi api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .batching(100, TimeUnit.MILLISECONDS, 3)
+                .build());
+    }
+
+    @Test
+    public void additionsOfDifferentItems_AreSentInOneCall() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        when(api.addItems(any())).thenReturn(Single.just(successfulResponsesFor(itemId1, itemId2)));
+
+        AssertableSubscriber<Response> subscriber1 = itemRepository.addItem(itemId1).test();
+        AssertableSubscriber<Response> subscriber2 = itemRepository.addItem(itemId2).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, times(1)).addItems(any());
+        verify(api, never()).addItem(any());
+        subscriber1.assertResult(Response.createSuccessfulResponse());
+        subscriber2.assertResult(Response.createSuccessfulResponse());
+    }
+
+    @Test
+    public void batch_IsSentWithoutWaitingForWindow_When_ItIsFull() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        ItemId itemId3 = mock(ItemId.class);
+        ItemId itemId4 = mock(ItemId.class);
+        when(api.addItems(any())).thenReturn(
+                Single.just(successfulResponsesFor(itemId1, itemId2, itemId3, itemId4)));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<ItemId>> captor = ArgumentCaptor.forClass((Class) Collection.class);
+
+        itemRepository.addItem(itemId1).test();
+        itemRepository.addItem(itemId2).test();
+        itemRepository.addItem(itemId3).test();
+        itemRepository.addItem(itemId4).test();
+        RxJavaSchedulerUtils.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        verify(api, times(1)).addItems(captor.capture());
+        assertEquals(new HashSet<>(Arrays.asList(itemId1, itemId2, itemId3)), new HashSet<>(captor.getValue()));
+
+        RxJavaSchedulerUtils.advanceOneSecond();
+        verify(api, times(2)).addItems(any());
+    }
+
+    @Test
+    public void partialFailure_RollsBackOnlyFailedItem() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        ApiResponse.ApiError apiError = mock(ApiResponse.ApiError.class);
+        Response.Cause cause = mock(Response.Cause.class);
+        when(apiErrorConverter.convertApiError(apiError)).thenReturn(cause);
+        Map<ItemId, ApiResponse> responses = successfulResponsesFor(itemId1);
+        responses.put(itemId2, ApiResponse.createFailedResponse(HttpStatus.BAD_REQUEST.value(), apiError));
+        when(api.addItems(any())).thenReturn(Single.just(responses));
+
+        AssertableSubscriber<Response> subscriber1 = itemRepository.addItem(itemId1).test();
+        AssertableSubscriber<Response> subscriber2 = itemRepository.addItem(itemId2).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        subscriber1.assertResult(Response.createSuccessfulResponse());
+        subscriber2.assertResult(Response.createFailedResponse(cause));
+        assertTrue(itemRepository.hasItem(itemId1));
+        assertFalse(itemRepository.hasItem(itemId2));
+    }
+
+    @Test
+    public void ARA_ResultInSingleAddition() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItems(any())).thenReturn(Single.just(successfulResponsesFor(itemId)));
+        when(api.removeItems(any())).thenReturn(Single.just(successfulResponsesFor(itemId)));
+
+        itemRepository.addItem(itemId).test();
+        itemRepository.removeItem(itemId).test();
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api, times(1)).addItems(any());
+        verify(api, never()).removeItems(any());
+    }
+
+    private static Map<ItemId, ApiResponse> successfulResponsesFor(final ItemId... itemIds) {
+        Map<ItemId, ApiResponse> responses = new HashMap<>();
+        for (ItemId itemId : itemIds) {
+            responses.put(itemId, ApiResponse.createSuccessfulResponse());
+        }
+        return responses;
+    }
+}
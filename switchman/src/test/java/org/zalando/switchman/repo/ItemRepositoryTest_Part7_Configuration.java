@@ -0,0 +1,100 @@
+package org.zalando.switchman.repo;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+import rx.schedulers.TestScheduler;
+
+public class ItemRepositoryTest_Part7_Configuration {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private TestScheduler commandScheduler;
+    private TestScheduler completionScheduler;
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        commandScheduler = new TestScheduler();
+        completionScheduler = new TestScheduler();
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .commandScheduler(commandScheduler)
+                .completionScheduler(completionScheduler)
+                .commandQueueSize(4)
+                .build());
+    }
+
+    @Test
+    public void commands_AreExecutedOnCommandScheduler() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+        verify(api, never()).addItem(itemId);
+
+        commandScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        verify(api).addItem(itemId);
+    }
+
+    @Test
+    public void results_AreDeliveredOnCompletionScheduler() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        AssertableSubscriber<Response> subscriber = itemRepository.addItem(itemId).test();
+        commandScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        subscriber.assertNoValues();
+
+        completionScheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        subscriber.assertResult(Response.createSuccessfulResponse());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void groupIdleTimeout_Throws_When_Negative() {
+        RepositoryConfig.builder().groupIdleTimeout(-1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batching_Throws_When_WindowIsNegative() {
+        RepositoryConfig.builder().batching(-1, TimeUnit.MILLISECONDS, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void itemListTtl_Throws_When_Negative() {
+        RepositoryConfig.builder().itemListTtl(-1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void counterFrameInterval_Throws_When_Negative() {
+        RepositoryConfig.builder().counterFrameInterval(-1, TimeUnit.MILLISECONDS);
+    }
+}
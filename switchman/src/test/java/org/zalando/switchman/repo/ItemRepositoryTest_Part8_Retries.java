@@ -0,0 +1,133 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+import org.zalando.switchman.api.HttpStatus;
+
+import rx.Single;
+
+import rx.observers.AssertableSubscriber;
+
+public class ItemRepositoryTest_Part8_Retries {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter, RepositoryConfig.builder()
+                .retryPolicy(RetryPolicy.exponentialBackoff(1, 4, TimeUnit.SECONDS, 3))
+                .build());
+    }
+
+    @Test
+    public void addItem_IsRetried_When_ApiThrows() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId))
+                .thenReturn(Single.error(new RuntimeException()))
+                .thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        AssertableSubscriber<Response> subscriber = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+        assertTrue(itemRepository.hasItem(itemId));
+        RxJavaSchedulerUtils.advanceInSeconds(2);
+
+        verify(api, times(2)).addItem(itemId);
+        subscriber.assertResult(Response.createSuccessfulResponse());
+        assertTrue(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void addItem_IsRetriedAfterRequestedDelay_When_ApiReturnsTooManyRequests() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId))
+                .thenReturn(Single.just(ApiResponse.createFailedResponse(HttpStatus.TOO_MANY_REQUESTS.value(),
+                        mock(ApiResponse.ApiError.class), 10, TimeUnit.SECONDS)))
+                .thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        AssertableSubscriber<Response> subscriber = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(9);
+        verify(api, times(1)).addItem(itemId);
+
+        RxJavaSchedulerUtils.advanceInSeconds(2);
+        verify(api, times(2)).addItem(itemId);
+        subscriber.assertResult(Response.createSuccessfulResponse());
+    }
+
+    @Test
+    public void addItem_Fails_When_MaxAttemptsAreReached() {
+        ItemId itemId = mock(ItemId.class);
+        ApiResponse.ApiError apiError = mock(ApiResponse.ApiError.class);
+        Response.Cause cause = mock(Response.Cause.class);
+        when(apiErrorConverter.convertApiError(apiError)).thenReturn(cause);
+        when(api.addItem(itemId)).thenReturn(Single.just(
+                ApiResponse.createFailedResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), apiError)));
+
+        AssertableSubscriber<Response> subscriber = itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(10);
+
+        verify(api, times(3)).addItem(itemId);
+        subscriber.assertResult(Response.createFailedResponse(cause));
+        assertFalse(itemRepository.hasItem(itemId));
+    }
+
+    @Test
+    public void addItem_IsNotRetried_When_ApiReturnsBadRequest() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.addItem(itemId)).thenReturn(Single.just(
+                ApiResponse.createFailedResponse(HttpStatus.BAD_REQUEST.value(), mock(ApiResponse.ApiError.class))));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(10);
+
+        verify(api, times(1)).addItem(itemId);
+    }
+
+    @Test
+    public void pendingRetry_IsCancelled_When_NewerCommandComes() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.getItemList()).thenReturn(Single.just(Collections.emptySet()));
+        itemRepository.getItemList().test();
+        when(api.addItem(itemId)).thenReturn(Single.just(ApiResponse.createFailedResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), mock(ApiResponse.ApiError.class), 5, TimeUnit.SECONDS)));
+
+        itemRepository.addItem(itemId).test();
+        RxJavaSchedulerUtils.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        itemRepository.removeItem(itemId).test();
+        RxJavaSchedulerUtils.advanceInSeconds(10);
+
+        verify(api, times(1)).addItem(itemId);
+        verify(api, never()).removeItem(itemId);
+        assertFalse(itemRepository.hasItem(itemId));
+    }
+}
@@ -0,0 +1,168 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.DeltaApi;
+import org.zalando.switchman.api.ItemListDelta;
+
+import rx.Single;
+
+import rx.subjects.PublishSubject;
+
+public class ItemRepositoryTest_Part9_DeltaSync {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Mock
+    private DeltaApi api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private ItemRepositoryImpl itemRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        itemRepository = new ItemRepositoryImpl(api, apiErrorConverter);
+    }
+
+    @Test
+    public void syncItemList_LoadsWholeList_When_CalledFirstTime() {
+        ItemId itemId = mock(ItemId.class);
+        when(api.getChangesSince(null)).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId), Collections.emptyList(), "1")));
+
+        itemRepository.syncItemList().test().assertNoErrors();
+
+        assertTrue(itemRepository.hasItem(itemId));
+        itemRepository.getCounter().test().assertValue(1);
+    }
+
+    @Test
+    public void syncItemList_AppliesChangesSincePreviousSync_When_CalledAgain() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        ItemId itemId3 = mock(ItemId.class);
+        when(api.getChangesSince(null)).thenReturn(Single.just(
+                ItemListDelta.create(Arrays.asList(itemId1, itemId2), Collections.emptyList(), "1")));
+        when(api.getChangesSince("1")).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId3), Collections.singletonList(itemId1), "2")));
+
+        itemRepository.syncItemList().test();
+        itemRepository.syncItemList().test().assertNoErrors();
+
+        assertFalse(itemRepository.hasItem(itemId1));
+        assertTrue(itemRepository.hasItem(itemId2));
+        assertTrue(itemRepository.hasItem(itemId3));
+        itemRepository.getCounter().test().assertValue(2);
+        verify(api, never()).getItemList();
+    }
+
+    @Test
+    public void syncItemList_LoadsWholeList_When_WholeListWasLoadedSincePreviousSync() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        when(api.getChangesSince(null))
+                .thenReturn(Single.just(ItemListDelta.create(Collections.singletonList(itemId1), Collections.emptyList(), "1")))
+                .thenReturn(Single.just(ItemListDelta.create(Collections.singletonList(itemId2), Collections.emptyList(), "3")));
+        when(api.getChangesSince("1")).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId1), Collections.emptyList(), "2")));
+        Set<Item<ItemId>> items = Collections.singleton(() -> itemId2);
+        when(api.getItemList()).thenReturn(Single.just(items));
+
+        itemRepository.syncItemList().test();
+        itemRepository.getItemList().test();
+        itemRepository.syncItemList().test().assertNoErrors();
+
+        verify(api, never()).getChangesSince("1");
+        assertFalse(itemRepository.hasItem(itemId1));
+        assertTrue(itemRepository.hasItem(itemId2));
+    }
+
+    @Test
+    public void syncItemList_IgnoresChanges_When_WholeListLoadedLaterFinishedFirst() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        when(api.getChangesSince(null)).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId1), Collections.emptyList(), "1")));
+        PublishSubject<ItemListDelta> changes = PublishSubject.create();
+        when(api.getChangesSince("1")).thenReturn(changes.toSingle());
+        Set<Item<ItemId>> items = Collections.singleton(() -> itemId2);
+        when(api.getItemList()).thenReturn(Single.just(items));
+
+        itemRepository.syncItemList().test();
+        itemRepository.syncItemList().test();
+        itemRepository.getItemList().test();
+        changes.onNext(ItemListDelta.create(Collections.singletonList(itemId1), Collections.emptyList(), "2"));
+        changes.onCompleted();
+
+        assertFalse(itemRepository.hasItem(itemId1));
+        assertTrue(itemRepository.hasItem(itemId2));
+    }
+
+    @Test
+    public void syncItemList_LoadsWholeList_When_TokenExpired() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        when(api.getChangesSince(null))
+                .thenReturn(Single.just(ItemListDelta.create(Collections.singletonList(itemId1),
+                        Collections.emptyList(), "1")))
+                .thenReturn(Single.just(ItemListDelta.create(Collections.singletonList(itemId2),
+                        Collections.emptyList(), "3")));
+        when(api.getChangesSince("1")).thenReturn(Single.just(ItemListDelta.createTokenExpired()));
+
+        itemRepository.syncItemList().test();
+        itemRepository.syncItemList().test().assertNoErrors();
+
+        assertFalse(itemRepository.hasItem(itemId1));
+        assertTrue(itemRepository.hasItem(itemId2));
+    }
+
+    @Test
+    public void counter_IncludesPendingAddition_When_ChangesAreApplied() {
+        ItemId itemId1 = mock(ItemId.class);
+        ItemId itemId2 = mock(ItemId.class);
+        when(api.getChangesSince(null)).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId1), Collections.emptyList(), "1")));
+        when(api.getChangesSince("1")).thenReturn(Single.just(
+                ItemListDelta.create(Collections.singletonList(itemId2), Collections.emptyList(), "2")));
+        when(api.addItem(itemId2)).thenReturn(RxJavaUtils.createNeverCompletedSingle());
+
+        itemRepository.syncItemList().test();
+        itemRepository.addItem(itemId2).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+        itemRepository.syncItemList().test();
+
+        itemRepository.getCounter().test().assertValue(2);
+    }
+
+    @Test
+    public void syncItemList_Fails_When_ApiIsNotDeltaApi() {
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(mock(Api.class), apiErrorConverter);
+
+        itemRepository.syncItemList().test().assertError(UnsupportedOperationException.class);
+    }
+}
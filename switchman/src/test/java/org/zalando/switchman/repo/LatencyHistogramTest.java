@@ -0,0 +1,37 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucket_ContainsValue_When_ValueIsRecorded() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValueOf(index - 1));
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile_IsWithinPrecision_When_ValuesAreUniform() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 8);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 8);
+        assertTrue(histogram.getValueAtPercentile(100) >= 10_000_000);
+    }
+
+    @Test
+    public void getValueAtPercentile_ReturnsZero_When_NothingIsRecorded() {
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,166 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import rx.Single;
+
+import rx.schedulers.TestScheduler;
+
+public class MappedCommandJournalTest {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private final ItemIdCodec codec = new LongItemIdCodec();
+    private final TestScheduler syncScheduler = new TestScheduler();
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        file = new File(temporaryFolder.getRoot(), "journal");
+    }
+
+    @Test
+    public void getPendingIntents_ReturnsLatestIntentOfEveryItem_When_JournalIsReopened() throws IOException {
+        MappedCommandJournal journal = open(1024);
+        journal.recordIntent(LongItemId.of(1), true);
+        journal.recordIntent(LongItemId.of(2), true);
+        journal.recordIntent(LongItemId.of(1), false);
+        journal.recordIntent(LongItemId.of(3), false);
+        journal.recordSettled(LongItemId.of(3));
+        journal.close();
+
+        assertEquals(Arrays.asList(
+                new CommandJournal.Intent(LongItemId.of(2), true),
+                new CommandJournal.Intent(LongItemId.of(1), false)),
+                open(1024).getPendingIntents());
+    }
+
+    @Test
+    public void getPendingIntents_ReturnsNothing_When_AllIntentsAreSettled() throws IOException {
+        MappedCommandJournal journal = open(1024);
+        journal.recordIntent(LongItemId.of(0), true);
+        journal.recordSettled(LongItemId.of(0));
+
+        assertEquals(Collections.emptyList(), open(1024).getPendingIntents());
+    }
+
+    @Test
+    public void recordIntent_CompactsJournal_When_ItIsFull() throws IOException {
+        MappedCommandJournal journal = open(64);
+        for (int i = 0; i < 100; i++) {
+            journal.recordIntent(LongItemId.of(i), i % 2 == 0);
+            journal.recordSettled(LongItemId.of(i));
+        }
+        journal.recordIntent(LongItemId.of(100), true);
+
+        assertEquals(64, file.length());
+        assertEquals(Collections.singletonList(new CommandJournal.Intent(LongItemId.of(100), true)),
+                open(64).getPendingIntents());
+    }
+
+    @Test
+    public void recordIntent_CompactsJournalOnSyncWorker_When_ItIsHalfFull() throws IOException {
+        MappedCommandJournal journal = open(64);
+        journal.recordIntent(LongItemId.of(1), true);
+        journal.recordSettled(LongItemId.of(1));
+        journal.recordIntent(LongItemId.of(2), true);
+        assertEquals(3, countRecords());
+
+        syncScheduler.triggerActions();
+        assertEquals(1, countRecords());
+
+        journal.recordIntent(LongItemId.of(3), false);
+        assertEquals(Arrays.asList(
+                new CommandJournal.Intent(LongItemId.of(2), true),
+                new CommandJournal.Intent(LongItemId.of(3), false)),
+                open(64).getPendingIntents());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recordIntent_Throws_When_PendingIntentsDoNotFit() throws IOException {
+        MappedCommandJournal journal = open(64);
+        for (int i = 0; i < 100; i++) {
+            journal.recordIntent(LongItemId.of(i), true);
+        }
+    }
+
+    @Test
+    public void repository_LaunchesPendingCommands_When_CreatedWithJournal() throws IOException {
+        ItemId pendingAddition = LongItemId.of(7);
+        ItemId pendingRemoval = LongItemId.of(8);
+        MappedCommandJournal journal = open(1024);
+        journal.recordIntent(pendingAddition, true);
+        journal.recordIntent(pendingRemoval, false);
+        journal.close();
+        when(api.addItem(pendingAddition)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+        when(api.removeItem(pendingRemoval)).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        MappedCommandJournal reopened = open(1024);
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter,
+                RepositoryConfig.builder().journal(reopened).build());
+        assertTrue(itemRepository.hasItem(pendingAddition));
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api).addItem(pendingAddition);
+        verify(api).removeItem(pendingRemoval);
+        assertTrue(itemRepository.hasItem(pendingAddition));
+        assertEquals(Collections.emptyList(), reopened.getPendingIntents());
+    }
+
+    /**
+     * Records follow the header of 8 bytes, each of them is type, length of the id and the id.
+     */
+    private int countRecords() throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        records.position(8);
+        int count = 0;
+        while (records.get() != 0) {
+            records.position(records.position() + 2 + records.getShort(records.position()));
+            count++;
+        }
+        return count;
+    }
+
+    private MappedCommandJournal open(final int capacity) throws IOException {
+        return MappedCommandJournal.open(file, codec, capacity, syncScheduler, 100, TimeUnit.MILLISECONDS);
+    }
+}
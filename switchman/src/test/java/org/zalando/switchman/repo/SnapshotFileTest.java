@@ -0,0 +1,141 @@
+package org.zalando.switchman.repo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.junit.rules.TemporaryFolder;
+
+import org.mockito.Mock;
+
+import org.zalando.switchman.Item;
+import org.zalando.switchman.ItemId;
+import org.zalando.switchman.LongItemId;
+import org.zalando.switchman.api.Api;
+import org.zalando.switchman.api.ApiResponse;
+
+import rx.Single;
+
+public class SnapshotFileTest {
+
+    static {
+        RxJavaSchedulerUtils.overrideSchedulersWithTestScheduler();
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private Api api;
+
+    @Mock
+    private ApiErrorConverter apiErrorConverter;
+
+    private SnapshotFile snapshotFile;
+
+    @Before
+    public void setUp() throws Exception {
+        initMocks(this);
+        snapshotFile = new SnapshotFile(new File(temporaryFolder.getRoot(), "snapshot"), new LongItemIdCodec());
+    }
+
+    @Test
+    public void read_ReturnsAddedItemsWithoutPendingChanges_When_SnapshotWasWritten() throws IOException {
+        LocalStorage<ItemId> localStorage = new LocalStorage<>();
+        localStorage.refreshLocalStorage(itemSet(LongItemId.of(1), LongItemId.of(2)));
+        localStorage.addItemIdForAddition(LongItemId.of(3));
+
+        snapshotFile.write(localStorage.snapshot());
+
+        assertEquals(new HashSet<>(Arrays.asList(LongItemId.of(1), LongItemId.of(2))),
+                new HashSet<>(snapshotFile.read()));
+    }
+
+    @Test
+    public void read_ReturnsNothing_When_SnapshotWasNeverWritten() throws IOException {
+        assertEquals(Collections.emptyList(), snapshotFile.read());
+    }
+
+    @Test(expected = IOException.class)
+    public void read_Throws_When_FileIsNotSnapshot() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+
+        new SnapshotFile(file, new LongItemIdCodec()).read();
+    }
+
+    @Test
+    public void repository_ShowsSavedItems_Before_ListIsLoaded() throws IOException {
+        LocalStorage<ItemId> localStorage = new LocalStorage<>();
+        localStorage.refreshLocalStorage(itemSet(LongItemId.of(1), LongItemId.of(2)));
+        snapshotFile.write(localStorage.snapshot());
+
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter,
+                RepositoryConfig.builder().snapshotFile(snapshotFile).build());
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertTrue(itemRepository.hasItem(LongItemId.of(1)));
+        itemRepository.getCounter().test().assertValue(2);
+    }
+
+    @Test
+    public void repository_ReplacesSavedItems_When_ListIsLoaded() throws IOException {
+        LocalStorage<ItemId> localStorage = new LocalStorage<>();
+        localStorage.refreshLocalStorage(itemSet(LongItemId.of(1)));
+        snapshotFile.write(localStorage.snapshot());
+        when(api.getItemList()).thenReturn(Single.just(itemSet(LongItemId.of(2))));
+
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter,
+                RepositoryConfig.builder().snapshotFile(snapshotFile).build());
+        RxJavaSchedulerUtils.advanceOneSecond();
+        itemRepository.getItemList().test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        assertFalse(itemRepository.hasItem(LongItemId.of(1)));
+        assertTrue(itemRepository.hasItem(LongItemId.of(2)));
+        assertEquals(Collections.singletonList(LongItemId.of(2)), snapshotFile.read());
+    }
+
+    @Test
+    public void addItem_CallsApi_When_ItemIsOnlyInSavedList() throws IOException {
+        LocalStorage<ItemId> localStorage = new LocalStorage<>();
+        localStorage.refreshLocalStorage(itemSet(LongItemId.of(1)));
+        snapshotFile.write(localStorage.snapshot());
+        when(api.addItem(LongItemId.of(1))).thenReturn(Single.just(ApiResponse.createSuccessfulResponse()));
+
+        ItemRepositoryImpl itemRepository = new ItemRepositoryImpl(api, apiErrorConverter,
+                RepositoryConfig.builder().snapshotFile(snapshotFile).build());
+        RxJavaSchedulerUtils.advanceOneSecond();
+        itemRepository.addItem(LongItemId.of(1)).test();
+        RxJavaSchedulerUtils.advanceOneSecond();
+
+        verify(api).addItem(LongItemId.of(1));
+    }
+
+    private static Set<Item<ItemId>> itemSet(final ItemId... ids) {
+        Set<Item<ItemId>> items = new HashSet<>();
+        for (ItemId id : ids) {
+            items.add(() -> id);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,62 @@
+package org.zalando.switchman.repo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Scheduler;
+import rx.Subscription;
+
+import rx.functions.Action0;
+
+/**
+ * Scheduler that counts its workers that are not unsubscribed yet.
+ */
+public class WorkerCountingScheduler extends Scheduler {
+    private final Scheduler scheduler;
+    private final AtomicInteger activeWorkerCount = new AtomicInteger();
+
+    public WorkerCountingScheduler(final Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public int getActiveWorkerCount() {
+        return activeWorkerCount.get();
+    }
+
+    @Override
+    public Worker createWorker() {
+        activeWorkerCount.incrementAndGet();
+        return new CountedWorker(scheduler.createWorker());
+    }
+
+    private final class CountedWorker extends Worker {
+        private final Worker worker;
+
+        private CountedWorker(final Worker worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public Subscription schedule(final Action0 action) {
+            return worker.schedule(action);
+        }
+
+        @Override
+        public Subscription schedule(final Action0 action, final long delayTime, final TimeUnit unit) {
+            return worker.schedule(action, delayTime, unit);
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (!worker.isUnsubscribed()) {
+                worker.unsubscribe();
+                activeWorkerCount.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return worker.isUnsubscribed();
+        }
+    }
+}